@@ -15,23 +15,41 @@
  */
 package net.tirasa.connid.bundles.servicenow;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import javax.ws.rs.HttpMethod;
+import net.tirasa.connid.bundles.servicenow.dto.BaseEntity;
 import net.tirasa.connid.bundles.servicenow.dto.BatchOperation;
 import net.tirasa.connid.bundles.servicenow.dto.BatchRequest;
-import net.tirasa.connid.bundles.servicenow.dto.PagedResults;
+import net.tirasa.connid.bundles.servicenow.dto.CompactResource;
 import net.tirasa.connid.bundles.servicenow.dto.Resource;
+import net.tirasa.connid.bundles.servicenow.dto.ResourceCodec;
+import net.tirasa.connid.bundles.servicenow.dto.SyncWatermark;
+import net.tirasa.connid.bundles.servicenow.service.NoSuchEntityException;
 import net.tirasa.connid.bundles.servicenow.service.SNClient;
 import net.tirasa.connid.bundles.servicenow.service.SNService;
+import net.tirasa.connid.bundles.servicenow.utils.ExpiringCache;
 import net.tirasa.connid.bundles.servicenow.utils.SNAttributes;
 import net.tirasa.connid.bundles.servicenow.utils.SNUtils;
 import org.identityconnectors.common.StringUtil;
@@ -53,6 +71,10 @@ import org.identityconnectors.framework.common.objects.PredefinedAttributes;
 import org.identityconnectors.framework.common.objects.ResultsHandler;
 import org.identityconnectors.framework.common.objects.Schema;
 import org.identityconnectors.framework.common.objects.SearchResult;
+import org.identityconnectors.framework.common.objects.SyncDeltaBuilder;
+import org.identityconnectors.framework.common.objects.SyncDeltaType;
+import org.identityconnectors.framework.common.objects.SyncResultsHandler;
+import org.identityconnectors.framework.common.objects.SyncToken;
 import org.identityconnectors.framework.common.objects.Uid;
 import org.identityconnectors.framework.common.objects.filter.AttributeFilter;
 import org.identityconnectors.framework.common.objects.filter.EqualsFilter;
@@ -63,27 +85,60 @@ import org.identityconnectors.framework.spi.Configuration;
 import org.identityconnectors.framework.spi.Connector;
 import org.identityconnectors.framework.spi.ConnectorClass;
 import org.identityconnectors.framework.spi.SearchResultsHandler;
+import org.identityconnectors.framework.spi.SyncTokenResultsHandler;
 import org.identityconnectors.framework.spi.operations.CreateOp;
 import org.identityconnectors.framework.spi.operations.DeleteOp;
 import org.identityconnectors.framework.spi.operations.SchemaOp;
 import org.identityconnectors.framework.spi.operations.SearchOp;
+import org.identityconnectors.framework.spi.operations.SyncOp;
 import org.identityconnectors.framework.spi.operations.TestOp;
 import org.identityconnectors.framework.spi.operations.UpdateOp;
 
 @ConnectorClass(displayNameKey = "ServiceNowConnector.connector.display",
         configurationClass = SNConnectorConfiguration.class)
 public class SNConnector implements
-        Connector, CreateOp, DeleteOp, SchemaOp, SearchOp<Filter>, TestOp, UpdateOp {
+        Connector, CreateOp, DeleteOp, SchemaOp, SearchOp<Filter>, SyncOp, TestOp, UpdateOp {
 
     private static final List<Map<String, String>> DEFAULT_HTTP_HEADERS =
             List.of(Map.of("name", "Content-Type", "value", "application/json"));
 
+    private static final Set<String> DEFAULT_FIELDS = Set.of(
+            SNAttributes.RESOURCE_ATTRIBUTE_ID,
+            SNAttributes.USER_ATTRIBUTE_USERNAME,
+            SNAttributes.RESOURCE_ATTRIBUTE_NAME);
+
+    /**
+     * Columns a Name can match.
+     */
+    private static final List<String> NAME_COLUMNS = List.of(
+            SNAttributes.RESOURCE_ATTRIBUTE_NAME,
+            SNAttributes.USER_ATTRIBUTE_USERNAME);
+
+    private static final String SYNC_TOKEN_SEPARATOR = "|";
+
+    private static final String MEMBERSHIP_USER = "user";
+
     private SNConnectorConfiguration configuration;
 
     private Schema schema;
 
     private SNClient client;
 
+    /**
+     * Users and groups, by table and name, as found in search results.
+     */
+    private ExpiringCache<String, IndexedName> nameIndex;
+
+    /**
+     * sys_id and names, by table, recently searched without results.
+     */
+    private ExpiringCache<String, Boolean> notFound;
+
+    /**
+     * Results of searches, by table, encoded query, fields and page.
+     */
+    private ExpiringCache<String, CachedQuery> queryCache;
+
     private static final Log LOG = Log.getLog(SNConnector.class);
 
     @Override
@@ -96,13 +151,31 @@ public class SNConnector implements
         this.configuration = (SNConnectorConfiguration) configuration;
         this.configuration.validate();
 
-        client = new SNClient(this.configuration);
+        client = createClient(this.configuration);
+        nameIndex = new ExpiringCache<>(
+                this.configuration.getNameIndexSize(), this.configuration.getNameIndexTtl());
+        notFound = new ExpiringCache<>(
+                this.configuration.getNotFoundCacheSize(), this.configuration.getNotFoundCacheTtl());
+        queryCache = new ExpiringCache<>(
+                this.configuration.getQueryCacheSize(), this.configuration.getQueryCacheTtl(), CachedQuery::weight);
 
         LOG.ok("Connector {0} successfully inited", getClass().getName());
     }
 
+    /**
+     * @param configuration validated configuration
+     * @return client towards the configured Service Now instance
+     */
+    protected SNClient createClient(final SNConnectorConfiguration configuration) {
+        return new SNClient(configuration);
+    }
+
     @Override
     public void dispose() {
+        if (client != null) {
+            client.close();
+            client = null;
+        }
         configuration = null;
     }
 
@@ -122,7 +195,9 @@ public class SNConnector implements
     @Override
     public Schema schema() {
         if (schema == null) {
-            schema = SNAttributes.buildSchema();
+            schema = SNAttributes.buildSchema(Arrays.stream(configuration.getTables())
+                    .map(client::getTableCodec)
+                    .collect(Collectors.toList()));
         }
         return schema;
     }
@@ -132,6 +207,7 @@ public class SNConnector implements
             final ObjectClass objectClass,
             final OperationOptions options) {
 
+        // filters are translated into encoded queries by executeQuery, see SNFilterTranslator
         return new FilterTranslator<Filter>() {
 
             @Override
@@ -150,7 +226,13 @@ public class SNConnector implements
 
         Attribute key = null;
         if (query instanceof EqualsFilter || query instanceof EqualsIgnoreCaseFilter) {
-            key = ((AttributeFilter) query).getAttribute();
+            Attribute attribute = ((AttributeFilter) query).getAttribute();
+            if (Uid.NAME.equals(attribute.getName())
+                    || SNAttributes.RESOURCE_ATTRIBUTE_ID.equals(attribute.getName())
+                    || Name.NAME.equals(attribute.getName())) {
+
+                key = attribute;
+            }
         }
 
         Set<String> attributesToGet = new HashSet<>();
@@ -158,75 +240,117 @@ public class SNConnector implements
             attributesToGet.addAll(Arrays.asList(options.getAttributesToGet()));
         }
 
-        SNService.ResourceTable type = setResourceType(objectClass);
+        ResourceCodec codec = codecOf(objectClass);
+
+        if (codec != null) {
+            Set<String> fields = fieldsToGet(codec, attributesToGet);
+            int[] indexes = codec.indexesOf(attributesToGet);
+            int[] fieldIndexes = codec.indexesOf(fields);
+            Function<BaseEntity, CompactResource> compactor = resource -> codec.compact(resource, fieldIndexes);
 
-        if (ObjectClass.ACCOUNT.equals(objectClass) || ObjectClass.GROUP.equals(objectClass)) {
             if (key == null) {
-                List<Resource> resources = null;
                 int remainingResults = -1;
                 int pagesSize = Optional.ofNullable(options.getPageSize()).orElse(-1);
                 String cookie = options.getPagedResultsCookie();
-
+                String filterQuery = new SNFilterTranslator(objectClass, codec).toEncodedQuery(query);
+
+                ResourceHandler consumer = new ResourceHandler(objectClass, attributesToGet, indexes, handler);
+
+                // identical searches are served from the query cache, if enabled; results are collected in compact
+                // form while handed, and cached only if all were handed and they fit in the cache
+                String queryKey = queryKey(codec, filterQuery, fields,
+                        pagesSize == -1 ? "" : (configuration.isKeysetPaging() ? "after:" : "offset:")
+                        + pagesSize + ":" + Optional.ofNullable(cookie).orElse(""));
+                CachedQuery cached = queryCache.get(queryKey);
+                AtomicReference<List<CompactResource>> collected = new AtomicReference<>(
+                        cached == null && configuration.getQueryCacheSize() > 0 ? new ArrayList<>() : null);
+                Predicate<CompactResource> sink = collected.get() == null
+                        ? consumer
+                        : resource -> {
+                            List<CompactResource> resources = collected.get();
+                            if (resources != null) {
+                                if (CachedQuery.weight(resources.size() + 1) > configuration.getQueryCacheSize()) {
+                                    // too many to be cached, stop holding them
+                                    collected.set(null);
+                                } else {
+                                    resources.add(resource);
+                                }
+                            }
+                            return consumer.test(resource);
+                        };
                 try {
-                    if (pagesSize != -1) {
-                        if (StringUtil.isNotBlank(cookie)) {
-                            PagedResults<Resource> pagedResult =
-                                    client.getResources(type, Integer.valueOf(cookie), pagesSize, false);
-                            resources = pagedResult.getResult();
-
-                            cookie = resources.size() >= pagesSize
-                                    ? String.valueOf(Integer.parseInt(cookie) + resources.size())
-                                    : null;
-                        } else {
-                            PagedResults<Resource> pagedResult = client.getResources(type, 0, pagesSize, false);
-                            resources = pagedResult.getResult();
-
-                            cookie = resources.size() >= pagesSize
-                                    ? String.valueOf(resources.size())
-                                    : null;
+                    // when memberships are to be resolved, pages are read in full before being handed
+                    List<CompactResource> page = consumer.isBatching() ? new ArrayList<>() : null;
+                    Predicate<CompactResource> pageSink = page == null ? sink : page::add;
+
+                    if (cached != null) {
+                        int chunkSize = configuration.getScanChunkSize();
+                        for (int i = 0; consumer.isProceeding() && i < cached.resources.size(); i += chunkSize) {
+                            consumer.handPage(cached.resources.subList(
+                                    i, Math.min(i + chunkSize, cached.resources.size())), consumer);
+                        }
+
+                        cookie = cached.cookie;
+                    } else if (pagesSize != -1 && configuration.isKeysetPaging()) {
+                        AtomicReference<String> lastKey = new AtomicReference<>();
+                        int read = client.streamResourcesAfter(
+                                codec, filterQuery, fields, cookie, pagesSize, resource -> {
+                                    lastKey.set(resource.getSysId());
+                                    return pageSink.test(compactor.apply(resource));
+                                });
+                        if (page != null) {
+                            consumer.handPage(page, sink);
                         }
+
+                        cookie = read >= pagesSize ? lastKey.get() : null;
+                    } else if (pagesSize != -1) {
+                        int offset = StringUtil.isNotBlank(cookie) ? Integer.parseInt(cookie) : 0;
+                        int read = client.streamResources(codec, filterQuery, fields, offset, pagesSize,
+                                resource -> pageSink.test(compactor.apply(resource)));
+                        if (page != null) {
+                            consumer.handPage(page, sink);
+                        }
+
+                        cookie = read >= pagesSize ? String.valueOf(offset + read) : null;
+                    } else if (consumer.isBatching() || collected.get() != null) {
+                        client.scanResources(codec, filterQuery, fields, compactor,
+                                consumer.isBatching() ? consumer::prepare : null, sink);
                     } else {
-                        resources = client.getResources(type).getResult();
+                        client.scanResources(codec, filterQuery, fields, compactor.andThen(
+                                resource -> fromResource(resource, objectClass, attributesToGet, indexes, null)),
+                                null, handler::handle);
+                    }
+
+                    if (collected.get() != null && consumer.isProceeding()) {
+                        queryCache.put(queryKey, new CachedQuery(collected.get(), cookie));
                     }
                 } catch (Exception e) {
                     SNUtils.wrapGeneralError("While getting Resources!", e);
                 }
 
-                for (Resource resource : resources) {
-                    handler.handle(fromResource(resource, objectClass, attributesToGet));
-                }
-
                 if (handler instanceof SearchResultsHandler) {
                     ((SearchResultsHandler) handler).handleResult(new SearchResult(cookie, remainingResults));
                 }
             } else {
-                Resource result = null;
+                CompactResource result = null;
                 if (Uid.NAME.equals(key.getName()) || SNAttributes.RESOURCE_ATTRIBUTE_ID.equals(key.getName())) {
                     try {
-                        result = client.getResource(type, AttributeUtil.getAsStringValue(key));
+                        result = compactor.apply(findByUid(codec, AttributeUtil.getAsStringValue(key), fields));
                     } catch (Exception e) {
                         SNUtils.wrapGeneralError("While getting Resource : "
                                 + key.getName() + " - " + AttributeUtil.getAsStringValue(key), e);
                     }
                 } else if (Name.NAME.equals(key.getName())) {
                     try {
-                        List<Resource> resources =
-                                client.getResources(type, "name=" + AttributeUtil.getAsStringValue(key) + "")
-                                        .getResult();
-                        if (resources.isEmpty() && type.equals(SNService.ResourceTable.sys_user)) {
-                            resources = client.getResources(type, "user_name=" + AttributeUtil.getAsStringValue(key))
-                                    .getResult();
-                        }
-                        if (!resources.isEmpty()) {
-                            result = resources.get(0);
-                        }
+                        result = findByName(
+                                codec, AttributeUtil.getAsStringValue(key), attributesToGet, fields, compactor);
                     } catch (Exception e) {
                         SNUtils.wrapGeneralError("While getting Resource : "
                                 + key.getName() + " - " + AttributeUtil.getAsStringValue(key), e);
                     }
                 }
                 if (result != null) {
-                    handler.handle(fromResource(result, objectClass, attributesToGet));
+                    handler.handle(fromResource(result, objectClass, attributesToGet, indexes, null));
                 }
             }
         } else {
@@ -236,6 +360,146 @@ public class SNConnector implements
         }
     }
 
+    @Override
+    public void sync(
+            final ObjectClass objectClass,
+            final SyncToken token,
+            final SyncResultsHandler handler,
+            final OperationOptions options) {
+
+        ResourceCodec codec = syncCodecOf(objectClass);
+        String[] marks = token == null || token.getValue() == null
+                ? new String[0]
+                : token.getValue().toString().split(Pattern.quote(SYNC_TOKEN_SEPARATOR), -1);
+        SyncWatermark from = SyncWatermark.parse(marks.length > 0 ? marks[0] : null);
+        SyncWatermark membershipsMark = SyncWatermark.parse(marks.length > 1 ? marks[1] : null);
+        SyncWatermark deletionsFrom = SyncWatermark.parse(marks.length > 2 ? marks[2] : null);
+
+        Set<String> attributesToGet = new HashSet<>();
+        if (options.getAttributesToGet() != null) {
+            attributesToGet.addAll(Arrays.asList(options.getAttributesToGet()));
+        }
+        Set<String> fields = fieldsToGet(codec, attributesToGet);
+        int[] indexes = codec.indexesOf(attributesToGet);
+        int[] fieldIndexes = codec.indexesOf(fields);
+
+        // tokens are queued along with records, as records might be handed later, when resolving memberships
+        Queue<SyncToken> tokens = new ArrayDeque<>();
+        AtomicBoolean proceed = new AtomicBoolean(true);
+        ResourceHandler consumer = new ResourceHandler(objectClass, attributesToGet, indexes,
+                object -> handler.handle(new SyncDeltaBuilder()
+                        .setDeltaType(SyncDeltaType.CREATE_OR_UPDATE)
+                        .setToken(tokens.poll())
+                        .setObject(object)
+                        .build()));
+        // membership changes are reported only along with groups; otherwise they are to be followed from the latest
+        // one, as in tokens returned by getLatestSyncToken
+        boolean memberships = consumer.isBatching();
+        SyncWatermark membershipsFrom;
+        try {
+            membershipsFrom = !memberships && membershipsMark.isNone() && tracksMemberships(objectClass)
+                    ? client.getLatestMembershipWatermark()
+                    : membershipsMark;
+        } catch (Exception e) {
+            SNUtils.wrapGeneralError("While synchronizing " + objectClass.getObjectClassValue(), e);
+            return;
+        }
+
+        SyncWatermark last = from;
+        SyncWatermark membershipsLast = membershipsFrom;
+        SyncWatermark deletionsLast = deletionsFrom;
+        try {
+            // 1. records changed
+            Set<String> synced = new HashSet<>();
+            last = client.scanChanges(codec, fields, from, memberships ? consumer::prepare : null,
+                    (resource, mark) -> {
+                        tokens.add(syncToken(mark, membershipsFrom, deletionsFrom));
+                        synced.add(resource.getSysId());
+                        return consumer.test(codec.compact(resource, fieldIndexes));
+                    });
+            proceed.set(consumer.isProceeding());
+
+            // 2. records deleted; users whose memberships were deleted are to be synchronized as well
+            Set<String> users = new LinkedHashSet<>();
+            AtomicReference<SyncWatermark> previous = new AtomicReference<>(deletionsFrom);
+            AtomicReference<SyncWatermark> membershipDeletionsFrom = new AtomicReference<>();
+            if (proceed.get() && StringUtil.isNotBlank(configuration.getDeletedRecordsTable())) {
+                SyncWatermark changed = last;
+                deletionsLast = client.scanDeletions(deletionTables(codec, memberships), deletionsFrom,
+                        (deleted, mark) -> {
+                            SyncWatermark before = previous.getAndSet(mark);
+                            if (codec.getTable().equals(deleted.getTablename())) {
+                                synced.add(deleted.getDocumentkey());
+                                proceed.set(handler.handle(new SyncDeltaBuilder()
+                                        .setDeltaType(SyncDeltaType.DELETE)
+                                        .setObjectClass(objectClass)
+                                        .setUid(new Uid(deleted.getDocumentkey()))
+                                        .setToken(syncToken(changed, membershipsFrom, mark))
+                                        .build()));
+                            } else {
+                                String user = deleted.getPayloadValue(MEMBERSHIP_USER);
+                                if (StringUtil.isNotBlank(user)) {
+                                    users.add(user);
+                                    membershipDeletionsFrom.compareAndSet(null, before);
+                                }
+                            }
+                            return proceed.get();
+                        });
+            }
+
+            // 3. users whose memberships changed
+            if (proceed.get() && memberships) {
+                membershipsLast = client.scanMembershipChanges(membershipsFrom, (membership, mark) -> {
+                    if (membership.getUser() != null) {
+                        users.add(membership.getUser().getValue());
+                    }
+                    return true;
+                });
+                users.removeAll(synced);
+
+                // deletions already reported are not to be reported again, unless users collected from deleted
+                // memberships might still be pending
+                SyncToken userToken = syncToken(last, membershipsFrom,
+                        Optional.ofNullable(membershipDeletionsFrom.get()).orElse(deletionsLast));
+                List<String> ids = new ArrayList<>(users);
+                for (int i = 0; i < ids.size() && consumer.isProceeding(); i += configuration.getScanChunkSize()) {
+                    List<String> chunk = ids.subList(i, Math.min(i + configuration.getScanChunkSize(), ids.size()));
+                    // users are known in advance, hence their memberships are resolved before reading them
+                    consumer.prepare(chunk);
+                    client.streamResources(codec, SNAttributes.RESOURCE_ATTRIBUTE_ID + "IN" + String.join(",", chunk),
+                            fields, null, null, resource -> {
+                                tokens.add(userToken);
+                                return consumer.test(codec.compact(resource, fieldIndexes));
+                            });
+                }
+                proceed.set(consumer.isProceeding());
+            }
+        } catch (Exception e) {
+            SNUtils.wrapGeneralError("While synchronizing " + objectClass.getObjectClassValue(), e);
+        }
+
+        if (proceed.get() && handler instanceof SyncTokenResultsHandler) {
+            ((SyncTokenResultsHandler) handler).handleResult(syncToken(last, membershipsLast, deletionsLast));
+        }
+    }
+
+    @Override
+    public SyncToken getLatestSyncToken(final ObjectClass objectClass) {
+        ResourceCodec codec = syncCodecOf(objectClass);
+        boolean memberships = tracksMemberships(objectClass);
+        try {
+            return syncToken(
+                    client.getLatestWatermark(codec),
+                    memberships ? client.getLatestMembershipWatermark() : SyncWatermark.NONE,
+                    StringUtil.isBlank(configuration.getDeletedRecordsTable())
+                    ? SyncWatermark.NONE
+                    : client.getLatestDeletionWatermark(deletionTables(codec, memberships)));
+        } catch (Exception e) {
+            SNUtils.wrapGeneralError("While getting latest sync token for " + objectClass.getObjectClassValue(), e);
+            return null;
+        }
+    }
+
     @Override
     public Uid create(ObjectClass objectClass, Set<Attribute> createAttributes, OperationOptions options) {
         LOG.ok("Connector CREATE");
@@ -257,59 +521,93 @@ public class SNConnector implements
             GuardedString password = accessor.findGuardedString(OperationalAttributes.PASSWORD_NAME);
             Attribute status = accessor.find(OperationalAttributes.ENABLE_NAME);
 
+            // whatever the outcome, the resource may now exist under these names
             try {
-                resource.setName(name);
-                resource.setUserName(username);
+                try {
+                    resource.setName(name);
+                    resource.setUserName(username);
 
-                if (password == null) {
-                    LOG.ok("No password attribute");
-                } else {
-                    resource.setUserPassword(SecurityUtil.decrypt(password));
-                }
+                    if (password == null) {
+                        LOG.ok("No password attribute");
+                    } else {
+                        resource.setUserPassword(SecurityUtil.decrypt(password));
+                    }
 
-                if (status == null
-                        || status.getValue() == null
-                        || status.getValue().isEmpty()) {
-                    LOG.warn("{0} attribute value not correct or not found, won't handle Resource status",
-                            OperationalAttributes.ENABLE_NAME);
-                } else {
-                    resource.setActive(status.getValue().get(0).toString());
-                }
+                    if (status == null
+                            || status.getValue() == null
+                            || status.getValue().isEmpty()) {
+                        LOG.warn("{0} attribute value not correct or not found, won't handle Resource status",
+                                OperationalAttributes.ENABLE_NAME);
+                    } else {
+                        resource.setActive(status.getValue().get(0).toString());
+                    }
 
-                resource.fromAttributes(createAttributes, configuration.getBaseAddress());
+                    resource.fromAttributes(createAttributes, configuration.getBaseAddress());
+                } catch (Exception e) {
+                    SNUtils.wrapGeneralError("Could not create Resource : " + username, e);
+                }
 
-                client.createResource(type, resource);
-            } catch (Exception e) {
-                SNUtils.wrapGeneralError("Could not create Resource : " + username, e);
-            }
+                Attribute groupsAttr = AttributeUtil.find(PredefinedAttributes.GROUPS_NAME, createAttributes);
+                List<Object> groups = groupsAttr == null || groupsAttr.getValue() == null
+                        ? List.of()
+                        : groupsAttr.getValue();
 
-            // also manage memberships
-            BatchRequest batchRequest = new BatchRequest(UUID.randomUUID().toString());
-            AtomicInteger counter = new AtomicInteger(1);
-            Optional.ofNullable(AttributeUtil.find(PredefinedAttributes.GROUPS_NAME, createAttributes))
-                    .ifPresent(groupsAttr -> {
-                        groupsAttr.getValue().forEach(group -> {
-                            try {
-                                batchRequest.getRequests().add(new BatchOperation.Builder().id(
-                                        String.valueOf(counter.getAndIncrement()))
-                                        .url("/api/now/table/" + SNService.ResourceTable.sys_user_grmember.name())
-                                        .headers(DEFAULT_HTTP_HEADERS)
-                                        .method(HttpMethod.POST).body(Map.of("user", resource.getSysId(), "group",
-                                        group.toString())).build());
-                            } catch (Exception e) {
-                                SNUtils.wrapGeneralError("Could not create user-group memberships : " + username, e);
-                            }
-                        });
-                    });
-            if (!batchRequest.getRequests().isEmpty()) {
+                BatchRequest batchRequest = new BatchRequest(UUID.randomUUID().toString());
+                AtomicInteger counter = new AtomicInteger(1);
+                boolean batchCreate = configuration.isBatchCreate()
+                        && ObjectClass.ACCOUNT.equals(objectClass)
+                        && !groups.isEmpty();
                 try {
-                    client.executeBatch(batchRequest);
+                    if (batchCreate) {
+                        // user and memberships are sent together, memberships referring to the sys_id set here
+                        resource.setSysId(SNUtils.newSysId());
+                        batchRequest.getRequests().add(new BatchOperation.Builder()
+                                .id(String.valueOf(counter.getAndIncrement()))
+                                .url("/api/now/table/" + type.name())
+                                .headers(DEFAULT_HTTP_HEADERS)
+                                .method(HttpMethod.POST)
+                                .body(resource)
+                                .build());
+                    } else {
+                        client.createResource(type, resource);
+                        invalidateQueries(type);
+                    }
                 } catch (Exception e) {
-                    SNUtils.wrapGeneralError("While executing batch to user-group memberships : " + username, e);
+                    SNUtils.wrapGeneralError("Could not create Resource : " + username, e);
+                }
+
+                // also manage memberships
+                groups.forEach(group -> {
+                    try {
+                        batchRequest.getRequests().add(new BatchOperation.Builder()
+                                .id(String.valueOf(counter.getAndIncrement()))
+                                .url("/api/now/table/" + SNService.ResourceTable.sys_user_grmember.name())
+                                .headers(DEFAULT_HTTP_HEADERS)
+                                .method(HttpMethod.POST)
+                                .body(Map.of("user", resource.getSysId(), "group", group.toString()))
+                                .build());
+                    } catch (Exception e) {
+                        SNUtils.wrapGeneralError("Could not create user-group memberships : " + username, e);
+                    }
+                });
+                if (!batchRequest.getRequests().isEmpty()) {
+                    try {
+                        client.executeBatch(batchRequest, batchCreate);
+                        if (batchCreate) {
+                            invalidateQueries(type);
+                        }
+                    } catch (Exception e) {
+                        if (batchCreate) {
+                            removeOrphanMemberships(resource.getSysId());
+                        }
+                        SNUtils.wrapGeneralError("While executing batch to user-group memberships : " + username, e);
+                    }
                 }
-            }
 
-            return new Uid(resource.getSysId());
+                return new Uid(resource.getSysId());
+            } finally {
+                forgetNotFound(objectClass, resource.getSysId(), username, name, accessor.findString(Name.NAME));
+            }
 
         } else {
             LOG.warn("Create of type {0} is not supported", objectClass.getObjectClassValue());
@@ -337,6 +635,8 @@ public class SNConnector implements
         if (ObjectClass.ACCOUNT.equals(objectClass) || ObjectClass.GROUP.equals(objectClass)) {
             try {
                 client.deleteResource(type, uid.getUidValue());
+                invalidateQueries(type);
+                forgetNames(uid.getUidValue());
             } catch (Exception e) {
                 SNUtils.wrapGeneralError("Could not delete Resource " + uid.getUidValue(), e);
             }
@@ -399,6 +699,8 @@ public class SNConnector implements
                 }
 
                 client.updateResource(type, resource);
+                invalidateQueries(type);
+                forgetNames(uid.getUidValue());
 
                 returnUid = new Uid(resource.getSysId());
             } catch (Exception e) {
@@ -406,49 +708,51 @@ public class SNConnector implements
                         "Could not update Resource " + uid.getUidValue() + " from attributes ", e);
             }
 
-            // also manage memberships
-            BatchRequest batchRequest = new BatchRequest(UUID.randomUUID().toString());
-            AtomicInteger counter = new AtomicInteger(1);
-
-            // 1. remove current memberships
-            client.getMembershipResources(SNService.ResourceTable.sys_user_grmember, "user=" + resource.getSysId())
-                    .getResult().forEach(memb -> {
-                        try {
-                            batchRequest.getRequests()
-                                    .add(new BatchOperation.Builder()
-                                            .id(String.valueOf(counter.getAndIncrement()))
-                                            .url("/api/now/table/" + SNService.ResourceTable.sys_user_grmember.name()
-                                                    + "/" + memb.getSysId())
-                                            .headers(DEFAULT_HTTP_HEADERS)
-                                            .method(HttpMethod.DELETE)
-                                            .build());
-                        } catch (Exception e) {
-                            SNUtils.wrapGeneralError("While deleting old user-group memberships : " + username, e);
+            // also manage memberships, only if requested
+            Attribute groupsAttr = AttributeUtil.find(PredefinedAttributes.GROUPS_NAME, replaceAttributes);
+            if (ObjectClass.ACCOUNT.equals(objectClass) && groupsAttr != null) {
+                Set<String> groups = groupsAttr.getValue() == null
+                        ? Set.of()
+                        : groupsAttr.getValue().stream().map(Object::toString).collect(Collectors.toSet());
+                BatchRequest batchRequest = new BatchRequest(UUID.randomUUID().toString());
+                AtomicInteger counter = new AtomicInteger(1);
+                try {
+                    Map<String, String> memberships = client.getUserMemberships(resource.getSysId());
+
+                    // 1. remove memberships to groups no longer assigned
+                    for (Map.Entry<String, String> membership : memberships.entrySet()) {
+                        if (!groups.contains(membership.getKey())) {
+                            batchRequest.getRequests().add(new BatchOperation.Builder()
+                                    .id(String.valueOf(counter.getAndIncrement()))
+                                    .url("/api/now/table/" + SNService.ResourceTable.sys_user_grmember.name()
+                                            + "/" + membership.getValue())
+                                    .headers(DEFAULT_HTTP_HEADERS)
+                                    .method(HttpMethod.DELETE)
+                                    .build());
                         }
-                    });
-            // 2. add the new ones
-            Optional.ofNullable(AttributeUtil.find(PredefinedAttributes.GROUPS_NAME, replaceAttributes))
-                    .ifPresent(groupsAttr -> {
-                        groupsAttr.getValue().forEach(group -> {
-                            try {
-                                batchRequest.getRequests().add(new BatchOperation.Builder()
-                                        .id(String.valueOf(counter.getAndIncrement()))
-                                        .url("/api/now/table/" + SNService.ResourceTable.sys_user_grmember.name())
-                                        .headers(DEFAULT_HTTP_HEADERS)
-                                        .method(HttpMethod.POST)
-                                        .body(Map.of("user", resource.getSysId(), "group", group.toString()))
-                                        .build());
-                            } catch (Exception e) {
-                                SNUtils.wrapGeneralError(
-                                        "While creating user-group memberships on update: " + username, e);
-                            }
-                        });
-                    });
+                    }
+                    // 2. add memberships to newly assigned groups
+                    for (String group : groups) {
+                        if (!memberships.containsKey(group)) {
+                            batchRequest.getRequests().add(new BatchOperation.Builder()
+                                    .id(String.valueOf(counter.getAndIncrement()))
+                                    .url("/api/now/table/" + SNService.ResourceTable.sys_user_grmember.name())
+                                    .headers(DEFAULT_HTTP_HEADERS)
+                                    .method(HttpMethod.POST)
+                                    .body(Map.of("user", resource.getSysId(), "group", group))
+                                    .build());
+                        }
+                    }
+                } catch (Exception e) {
+                    SNUtils.wrapGeneralError("While preparing user-group memberships on update: " + username, e);
+                }
 
-            if (!batchRequest.getRequests().isEmpty()) {
-                client.executeBatch(batchRequest);
+                if (!batchRequest.getRequests().isEmpty()) {
+                    client.executeBatch(batchRequest);
+                }
             }
 
+            forgetNotFound(objectClass, returnUid.getUidValue(), username, name, accessor.findString(Name.NAME));
             return returnUid;
 
         } else {
@@ -458,47 +762,401 @@ public class SNConnector implements
         }
     }
 
+    /**
+     * Deletes the memberships of the given user if the user itself could not be created along with them: as the
+     * batch carries the sys_id chosen on client side, memberships may have been created for a missing user.
+     */
+    private void removeOrphanMemberships(final String userId) {
+        try {
+            client.getResource(ResourceCodec.USER, userId, Set.of(SNAttributes.RESOURCE_ATTRIBUTE_ID));
+            return;
+        } catch (NoSuchEntityException e) {
+            LOG.ok("User {0} was not created, removing its memberships", userId);
+        } catch (Exception e) {
+            LOG.error(e, "While checking whether user {0} was created", userId);
+            return;
+        }
+
+        try {
+            BatchRequest batchRequest = new BatchRequest(UUID.randomUUID().toString());
+            AtomicInteger counter = new AtomicInteger(1);
+            for (String membership : client.getUserMemberships(userId).values()) {
+                batchRequest.getRequests().add(new BatchOperation.Builder()
+                        .id(String.valueOf(counter.getAndIncrement()))
+                        .url("/api/now/table/" + SNService.ResourceTable.sys_user_grmember.name() + "/" + membership)
+                        .headers(DEFAULT_HTTP_HEADERS)
+                        .method(HttpMethod.DELETE)
+                        .build());
+            }
+            if (!batchRequest.getRequests().isEmpty()) {
+                client.executeBatch(batchRequest);
+            }
+        } catch (Exception e) {
+            LOG.error(e, "While removing memberships of user {0}, which was not created", userId);
+        }
+    }
+
     public SNClient getClient() {
         return client;
     }
 
-    private ConnectorObject fromResource(
-            final Resource resource,
+    private BaseEntity findByUid(final ResourceCodec codec, final String id, final Set<String> fields) {
+        String notFoundKey = notFoundKey(codec, Uid.NAME, id);
+        if (notFound.get(notFoundKey) != null) {
+            throw new NoSuchEntityException("Resource " + id + " not found");
+        }
+
+        try {
+            return client.getResource(codec, id, fields);
+        } catch (NoSuchEntityException e) {
+            notFound.put(notFoundKey, Boolean.TRUE);
+            throw e;
+        }
+    }
+
+    /**
+     * Looks for the record with the given name, first in the name index, then with a single query; for users, the
+     * name can match either name or user_name, records matching by name being preferred.
+     */
+    private CompactResource findByName(
+            final ResourceCodec codec,
+            final String name,
+            final Set<String> attributesToGet,
+            final Set<String> fields,
+            final Function<BaseEntity, CompactResource> compactor) {
+
+        String notFoundKey = notFoundKey(codec, Name.NAME, name);
+        if (notFound.get(notFoundKey) != null) {
+            return null;
+        }
+
+        IndexedName indexed = nameIndex.get(codec.getTable() + "/" + name);
+        if (indexed != null && indexed.attributesToGet.containsAll(attributesToGet)
+                && hasName(indexed.resource, name)) {
+
+            return indexed.resource;
+        }
+
+        if (name.contains(SNUtils.QUERY_AND) || name.contains("\n") || name.contains("\r")) {
+            LOG.warn("Name {0} cannot be searched by encoded query", name);
+            return null;
+        }
+        // Service Now ignores conditions on unknown columns, hence only the ones the table has are queried
+        List<String> columns = NAME_COLUMNS.stream()
+                .filter(column -> codec.indexOf(column) != -1)
+                .collect(Collectors.toList());
+        if (columns.isEmpty()) {
+            LOG.warn("Table {0} has no name column to search {1} by", codec.getTable(), name);
+            return null;
+        }
+
+        // user_name is unique, hence reading as many records as columns gets one matching by name, if any
+        BaseEntity[] found = new BaseEntity[columns.size()];
+        String filterQuery = columns.stream()
+                .map(column -> column + "=" + name)
+                .collect(Collectors.joining("^OR"));
+        client.streamResources(codec, filterQuery, fields, 0, columns.size(), resource -> {
+            for (int i = 0; i < found.length; i++) {
+                if (found[i] == null && name.equals(value(codec, resource, columns.get(i)))) {
+                    found[i] = resource;
+                }
+            }
+            return true;
+        });
+        BaseEntity result = Arrays.stream(found).filter(Objects::nonNull).findFirst().orElse(null);
+        if (result == null) {
+            notFound.put(notFoundKey, Boolean.TRUE);
+            return null;
+        }
+        return compactor.apply(result);
+    }
+
+    /**
+     * @return key of the given search, by table first
+     */
+    private static String queryKey(
+            final ResourceCodec codec,
+            final String filterQuery,
+            final Set<String> fields,
+            final String pageKey) {
+
+        return codec.getTable() + "|" + (StringUtil.isBlank(filterQuery) ? "" : filterQuery.trim())
+                + "|" + new TreeSet<>(fields) + "|" + pageKey;
+    }
+
+    /**
+     * Drops cached searches on the given table, after the connector changed it.
+     */
+    private void invalidateQueries(final SNService.ResourceTable type) {
+        String prefix = type.name() + "|";
+        queryCache.invalidateAll(queryKey -> queryKey.startsWith(prefix));
+    }
+
+    private static String notFoundKey(final ResourceCodec codec, final String attribute, final String value) {
+        return codec.getTable() + "/" + attribute + "/" + value;
+    }
+
+    /**
+     * Forgets the given sys_id (if any) and names as not found, after the connector created or updated them.
+     */
+    private void forgetNotFound(final ObjectClass objectClass, final String sysId, final String... names) {
+        ResourceCodec codec = ResourceCodec.of(objectClass);
+        if (sysId != null) {
+            notFound.invalidate(notFoundKey(codec, Uid.NAME, sysId));
+        }
+        for (String name : names) {
+            if (name != null) {
+                notFound.invalidate(notFoundKey(codec, Name.NAME, name));
+            }
+        }
+    }
+
+    private static boolean hasName(final CompactResource resource, final String name) {
+        return NAME_COLUMNS.stream().anyMatch(column -> name.equals(resource.get(column)));
+    }
+
+    private static String value(final ResourceCodec codec, final BaseEntity resource, final String name) {
+        int index = codec.indexOf(name);
+        return index == -1 ? null : codec.get(resource, index);
+    }
+
+    private void indexNames(
             final ObjectClass objectClass,
+            final CompactResource resource,
             final Set<String> attributesToGet) {
+
+        if (ObjectClass.ACCOUNT.equals(objectClass) || ObjectClass.GROUP.equals(objectClass)) {
+            IndexedName indexed = new IndexedName(resource, attributesToGet);
+            for (String name : new String[] { resource.getUserName(), resource.getName() }) {
+                if (StringUtil.isNotBlank(name)) {
+                    nameIndex.put(ResourceCodec.of(objectClass).getTable() + "/" + name, indexed);
+                }
+            }
+        }
+    }
+
+    /**
+     * Forgets the names of the given record, after the connector updated or deleted it.
+     */
+    private void forgetNames(final String sysId) {
+        nameIndex.invalidateValues(indexed -> sysId.equals(indexed.resource.getSysId()));
+    }
+
+    private ConnectorObject fromResource(
+            final CompactResource resource,
+            final ObjectClass objectClass,
+            final Set<String> attributesToGet,
+            final int[] indexes,
+            final List<String> groups) {
         ConnectorObjectBuilder builder = new ConnectorObjectBuilder();
         builder.setObjectClass(objectClass);
         builder.setUid(resource.getSysId());
-        builder.setName(StringUtil.isBlank(resource.getUserName()) ? resource.getName() : resource.getUserName());
+        builder.setName(StringUtil.isNotBlank(resource.getUserName())
+                ? resource.getUserName()
+                : StringUtil.isNotBlank(resource.getName()) ? resource.getName() : resource.getSysId());
+        indexNames(objectClass, resource, attributesToGet);
 
-        try {
-            Set<Attribute> attributes = resource.toAttributes();
-            for (Attribute toAttribute : attributes) {
-                String attributeName = toAttribute.getName();
-                for (String attributeToGetName : attributesToGet) {
-                    if (attributeName.equals(attributeToGetName)) {
-                        builder.addAttribute(toAttribute);
-                        break;
-                    }
-                }
-            }
-        } catch (IllegalArgumentException | IllegalAccessException ex) {
-            LOG.error(ex, "While converting to attributes");
+        for (int index : indexes) {
+            builder.addAttribute(resource.toAttribute(index));
         }
 
-        // retrieve also memberships
+        // retrieve also memberships, unless already resolved
         if (ObjectClass.ACCOUNT.equals(objectClass) && attributesToGet.contains(PredefinedAttributes.GROUPS_NAME)) {
             builder.addAttribute(AttributeBuilder.build(
                     PredefinedAttributes.GROUPS_NAME,
-                    client.getMembershipResources(SNService.ResourceTable.sys_user_grmember,
-                            "user=" + resource.getSysId()).getResult().stream()
-                            .map(mr -> mr.getGroup().getValue())
-                            .collect(Collectors.toList())));
+                    groups == null
+                            ? client.getUserGroups(Set.of(resource.getSysId()))
+                                    .getOrDefault(resource.getSysId(), List.of())
+                            : groups));
         }
 
         return builder.build();
     }
 
+    /**
+     * Translates the attributes requested into the Service Now fields to be returned, always including the ones
+     * needed to build Uid and Name.
+     */
+    private static Set<String> fieldsToGet(final ResourceCodec codec, final Set<String> attributesToGet) {
+        Set<String> fields = new HashSet<>();
+        DEFAULT_FIELDS.stream().filter(field -> codec.indexOf(field) != -1).forEach(fields::add);
+        attributesToGet.stream().filter(field -> codec.indexOf(field) != -1).forEach(fields::add);
+        return fields;
+    }
+
+    /**
+     * Record found in search results, along with the attributes requested, to tell which searches it can answer.
+     */
+    private static final class IndexedName {
+
+        private final CompactResource resource;
+
+        private final Set<String> attributesToGet;
+
+        IndexedName(final CompactResource resource, final Set<String> attributesToGet) {
+            this.resource = resource;
+            this.attributesToGet = attributesToGet;
+        }
+    }
+
+    /**
+     * Results of a search, in compact form, along with the paged results cookie returned.
+     */
+    private static final class CachedQuery {
+
+        private final List<CompactResource> resources;
+
+        private final String cookie;
+
+        CachedQuery(final List<CompactResource> resources, final String cookie) {
+            this.resources = resources;
+            this.cookie = cookie;
+        }
+
+        int weight() {
+            return weight(resources.size());
+        }
+
+        static int weight(final int size) {
+            return size + 1;
+        }
+    }
+
+    /**
+     * Hands Resources to the handler; when memberships are requested, the memberships of a whole page of Resources
+     * are resolved with few requests by {@link #prepare(List)}, once the page was read and its response closed, so
+     * that no request is sent while another response is still being read.
+     */
+    private class ResourceHandler implements Predicate<CompactResource> {
+
+        private final ObjectClass objectClass;
+
+        private final Set<String> attributesToGet;
+
+        private final int[] indexes;
+
+        private final ResultsHandler handler;
+
+        private final boolean batching;
+
+        /**
+         * Groups of the users prepared and not handled yet, by sys_id; pages may be prepared by several threads.
+         */
+        private final Map<String, List<String>> groups = new ConcurrentHashMap<>();
+
+        private volatile boolean proceed = true;
+
+        ResourceHandler(
+                final ObjectClass objectClass,
+                final Set<String> attributesToGet,
+                final int[] indexes,
+                final ResultsHandler handler) {
+
+            this.objectClass = objectClass;
+            this.attributesToGet = attributesToGet;
+            this.indexes = indexes;
+            this.handler = handler;
+            this.batching = ObjectClass.ACCOUNT.equals(objectClass)
+                    && attributesToGet.contains(PredefinedAttributes.GROUPS_NAME);
+        }
+
+        boolean isBatching() {
+            return batching;
+        }
+
+        boolean isProceeding() {
+            return proceed;
+        }
+
+        /**
+         * Resolves the memberships of the given users, if requested, before they are handled.
+         *
+         * @param sysIds sys_ids of a page of users
+         */
+        void prepare(final List<String> sysIds) {
+            if (batching && proceed && !sysIds.isEmpty()) {
+                Map<String, List<String>> resolved = client.getUserGroups(sysIds);
+                sysIds.forEach(sysId -> groups.put(sysId, resolved.getOrDefault(sysId, List.of())));
+            }
+        }
+
+        /**
+         * Hands the given page of Resources, preparing it first.
+         *
+         * @param page Resources
+         * @param sink receives each Resource, returns false to stop
+         */
+        void handPage(final List<CompactResource> page, final Predicate<CompactResource> sink) {
+            prepare(page.stream().map(CompactResource::getSysId).collect(Collectors.toList()));
+            for (Iterator<CompactResource> itor = page.iterator(); proceed && itor.hasNext();) {
+                sink.test(itor.next());
+            }
+        }
+
+        @Override
+        public boolean test(final CompactResource resource) {
+            if (proceed) {
+                // memberships not prepared, if any, are resolved by fromResource
+                proceed = handler.handle(fromResource(resource, objectClass, attributesToGet, indexes,
+                        batching ? groups.remove(resource.getSysId()) : null));
+            }
+            return proceed;
+        }
+    }
+
+    /**
+     * @return codec of the table backing the given object class, if it tracks changes via sys_updated_on
+     */
+    private ResourceCodec syncCodecOf(final ObjectClass objectClass) {
+        ResourceCodec codec = codecOf(objectClass);
+        if (codec == null || codec.indexOf(SNAttributes.RESOURCE_ATTRIBUTE_UPDATED_ON) == -1) {
+            LOG.warn("Sync of type {0} is not supported", objectClass.getObjectClassValue());
+            throw new UnsupportedOperationException("Sync of type"
+                    + objectClass.getObjectClassValue() + " is not supported");
+        }
+        return codec;
+    }
+
+    /**
+     * Sync tokens hold the watermarks of records, user-group memberships and deletions.
+     */
+    private static SyncToken syncToken(
+            final SyncWatermark watermark,
+            final SyncWatermark membershipsWatermark,
+            final SyncWatermark deletionsWatermark) {
+
+        return new SyncToken(watermark + SYNC_TOKEN_SEPARATOR + membershipsWatermark
+                + SYNC_TOKEN_SEPARATOR + deletionsWatermark);
+    }
+
+    /**
+     * Memberships are tracked for users only.
+     */
+    private static boolean tracksMemberships(final ObjectClass objectClass) {
+        return ObjectClass.ACCOUNT.equals(objectClass);
+    }
+
+    private static List<String> deletionTables(final ResourceCodec codec, final boolean memberships) {
+        return memberships
+                ? List.of(codec.getTable(), SNService.ResourceTable.sys_user_grmember.name())
+                : List.of(codec.getTable());
+    }
+
+    /**
+     * @return codec of the table backing the given object class, or null if not supported
+     */
+    private ResourceCodec codecOf(final ObjectClass objectClass) {
+        if (ObjectClass.ACCOUNT.equals(objectClass)) {
+            return ResourceCodec.USER;
+        }
+        if (ObjectClass.GROUP.equals(objectClass)) {
+            return ResourceCodec.GROUP;
+        }
+        return Arrays.asList(configuration.getTables()).contains(objectClass.getObjectClassValue())
+                ? client.getTableCodec(objectClass.getObjectClassValue())
+                : null;
+    }
+
     private static SNService.ResourceTable setResourceType(final ObjectClass objectClass) {
         SNService.ResourceTable type = null;
         if (ObjectClass.ACCOUNT.equals(objectClass)) {
@@ -37,6 +37,54 @@ public class SNConnectorConfiguration extends AbstractConfiguration implements S
 
     private String baseAddress;
 
+    private int maxConnections = 20;
+
+    private int maxConnectionsPerRoute = 10;
+
+    private long connectionMaxIdle = 60000L;
+
+    private boolean keysetPaging = false;
+
+    private int scanChunkSize = 1000;
+
+    private int readAheadPages = 0;
+
+    private int scanParallelism = 1;
+
+    private int batchChunkSize = 50;
+
+    private int batchRetries = 2;
+
+    private boolean batchCreate = false;
+
+    private String[] tables = {};
+
+    private String deletedRecordsTable = "";
+
+    private int resourceCacheSize = 0;
+
+    private long resourceCacheTtl = 0L;
+
+    private int writeCacheSize = 0;
+
+    private long writeCacheTtl = 10000L;
+
+    private int nameIndexSize = 10000;
+
+    private long nameIndexTtl = 60000L;
+
+    private int notFoundCacheSize = 0;
+
+    private long notFoundCacheTtl = 5000L;
+
+    private int queryCacheSize = 0;
+
+    private long queryCacheTtl = 60000L;
+
+    private double rateLimit = 0;
+
+    private int rateLimitRetries = 5;
+
     @ConfigurationProperty(order = 1, displayMessageKey = "baseAddress.display",
             helpMessageKey = "baseAddress.help", required = true)
     public String getBaseAddress() {
@@ -67,6 +115,246 @@ public class SNConnectorConfiguration extends AbstractConfiguration implements S
         this.password = password;
     }
 
+    @ConfigurationProperty(order = 4, displayMessageKey = "maxConnections.display",
+            helpMessageKey = "maxConnections.help")
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(final int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    @ConfigurationProperty(order = 5, displayMessageKey = "maxConnectionsPerRoute.display",
+            helpMessageKey = "maxConnectionsPerRoute.help")
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public void setMaxConnectionsPerRoute(final int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    @ConfigurationProperty(order = 6, displayMessageKey = "connectionMaxIdle.display",
+            helpMessageKey = "connectionMaxIdle.help")
+    public long getConnectionMaxIdle() {
+        return connectionMaxIdle;
+    }
+
+    public void setConnectionMaxIdle(final long connectionMaxIdle) {
+        this.connectionMaxIdle = connectionMaxIdle;
+    }
+
+    @ConfigurationProperty(order = 7, displayMessageKey = "keysetPaging.display",
+            helpMessageKey = "keysetPaging.help")
+    public boolean isKeysetPaging() {
+        return keysetPaging;
+    }
+
+    public void setKeysetPaging(final boolean keysetPaging) {
+        this.keysetPaging = keysetPaging;
+    }
+
+    @ConfigurationProperty(order = 8, displayMessageKey = "scanChunkSize.display",
+            helpMessageKey = "scanChunkSize.help")
+    public int getScanChunkSize() {
+        return scanChunkSize;
+    }
+
+    public void setScanChunkSize(final int scanChunkSize) {
+        this.scanChunkSize = scanChunkSize;
+    }
+
+    @ConfigurationProperty(order = 9, displayMessageKey = "readAheadPages.display",
+            helpMessageKey = "readAheadPages.help")
+    public int getReadAheadPages() {
+        return readAheadPages;
+    }
+
+    public void setReadAheadPages(final int readAheadPages) {
+        this.readAheadPages = readAheadPages;
+    }
+
+    @ConfigurationProperty(order = 10, displayMessageKey = "scanParallelism.display",
+            helpMessageKey = "scanParallelism.help")
+    public int getScanParallelism() {
+        return scanParallelism;
+    }
+
+    public void setScanParallelism(final int scanParallelism) {
+        this.scanParallelism = scanParallelism;
+    }
+
+    @ConfigurationProperty(order = 11, displayMessageKey = "batchChunkSize.display",
+            helpMessageKey = "batchChunkSize.help")
+    public int getBatchChunkSize() {
+        return batchChunkSize;
+    }
+
+    public void setBatchChunkSize(final int batchChunkSize) {
+        this.batchChunkSize = batchChunkSize;
+    }
+
+    @ConfigurationProperty(order = 12, displayMessageKey = "batchRetries.display",
+            helpMessageKey = "batchRetries.help")
+    public int getBatchRetries() {
+        return batchRetries;
+    }
+
+    public void setBatchRetries(final int batchRetries) {
+        this.batchRetries = batchRetries;
+    }
+
+    @ConfigurationProperty(order = 13, displayMessageKey = "batchCreate.display",
+            helpMessageKey = "batchCreate.help")
+    public boolean isBatchCreate() {
+        return batchCreate;
+    }
+
+    public void setBatchCreate(final boolean batchCreate) {
+        this.batchCreate = batchCreate;
+    }
+
+    @ConfigurationProperty(order = 14, displayMessageKey = "tables.display",
+            helpMessageKey = "tables.help")
+    public String[] getTables() {
+        return tables.clone();
+    }
+
+    public void setTables(final String[] tables) {
+        this.tables = tables == null ? new String[0] : tables.clone();
+    }
+
+    @ConfigurationProperty(order = 15, displayMessageKey = "deletedRecordsTable.display",
+            helpMessageKey = "deletedRecordsTable.help")
+    public String getDeletedRecordsTable() {
+        return deletedRecordsTable;
+    }
+
+    public void setDeletedRecordsTable(final String deletedRecordsTable) {
+        this.deletedRecordsTable = deletedRecordsTable;
+    }
+
+    @ConfigurationProperty(order = 16, displayMessageKey = "resourceCacheSize.display",
+            helpMessageKey = "resourceCacheSize.help")
+    public int getResourceCacheSize() {
+        return resourceCacheSize;
+    }
+
+    public void setResourceCacheSize(final int resourceCacheSize) {
+        this.resourceCacheSize = resourceCacheSize;
+    }
+
+    @ConfigurationProperty(order = 17, displayMessageKey = "resourceCacheTtl.display",
+            helpMessageKey = "resourceCacheTtl.help")
+    public long getResourceCacheTtl() {
+        return resourceCacheTtl;
+    }
+
+    public void setResourceCacheTtl(final long resourceCacheTtl) {
+        this.resourceCacheTtl = resourceCacheTtl;
+    }
+
+    @ConfigurationProperty(order = 18, displayMessageKey = "writeCacheSize.display",
+            helpMessageKey = "writeCacheSize.help")
+    public int getWriteCacheSize() {
+        return writeCacheSize;
+    }
+
+    public void setWriteCacheSize(final int writeCacheSize) {
+        this.writeCacheSize = writeCacheSize;
+    }
+
+    @ConfigurationProperty(order = 19, displayMessageKey = "writeCacheTtl.display",
+            helpMessageKey = "writeCacheTtl.help")
+    public long getWriteCacheTtl() {
+        return writeCacheTtl;
+    }
+
+    public void setWriteCacheTtl(final long writeCacheTtl) {
+        this.writeCacheTtl = writeCacheTtl;
+    }
+
+    @ConfigurationProperty(order = 20, displayMessageKey = "nameIndexSize.display",
+            helpMessageKey = "nameIndexSize.help")
+    public int getNameIndexSize() {
+        return nameIndexSize;
+    }
+
+    public void setNameIndexSize(final int nameIndexSize) {
+        this.nameIndexSize = nameIndexSize;
+    }
+
+    @ConfigurationProperty(order = 21, displayMessageKey = "nameIndexTtl.display",
+            helpMessageKey = "nameIndexTtl.help")
+    public long getNameIndexTtl() {
+        return nameIndexTtl;
+    }
+
+    public void setNameIndexTtl(final long nameIndexTtl) {
+        this.nameIndexTtl = nameIndexTtl;
+    }
+
+    @ConfigurationProperty(order = 22, displayMessageKey = "notFoundCacheSize.display",
+            helpMessageKey = "notFoundCacheSize.help")
+    public int getNotFoundCacheSize() {
+        return notFoundCacheSize;
+    }
+
+    public void setNotFoundCacheSize(final int notFoundCacheSize) {
+        this.notFoundCacheSize = notFoundCacheSize;
+    }
+
+    @ConfigurationProperty(order = 23, displayMessageKey = "notFoundCacheTtl.display",
+            helpMessageKey = "notFoundCacheTtl.help")
+    public long getNotFoundCacheTtl() {
+        return notFoundCacheTtl;
+    }
+
+    public void setNotFoundCacheTtl(final long notFoundCacheTtl) {
+        this.notFoundCacheTtl = notFoundCacheTtl;
+    }
+
+    @ConfigurationProperty(order = 24, displayMessageKey = "queryCacheSize.display",
+            helpMessageKey = "queryCacheSize.help")
+    public int getQueryCacheSize() {
+        return queryCacheSize;
+    }
+
+    public void setQueryCacheSize(final int queryCacheSize) {
+        this.queryCacheSize = queryCacheSize;
+    }
+
+    @ConfigurationProperty(order = 25, displayMessageKey = "queryCacheTtl.display",
+            helpMessageKey = "queryCacheTtl.help")
+    public long getQueryCacheTtl() {
+        return queryCacheTtl;
+    }
+
+    public void setQueryCacheTtl(final long queryCacheTtl) {
+        this.queryCacheTtl = queryCacheTtl;
+    }
+
+    @ConfigurationProperty(order = 26, displayMessageKey = "rateLimit.display",
+            helpMessageKey = "rateLimit.help")
+    public double getRateLimit() {
+        return rateLimit;
+    }
+
+    public void setRateLimit(final double rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+
+    @ConfigurationProperty(order = 27, displayMessageKey = "rateLimitRetries.display",
+            helpMessageKey = "rateLimitRetries.help")
+    public int getRateLimitRetries() {
+        return rateLimitRetries;
+    }
+
+    public void setRateLimitRetries(final int rateLimitRetries) {
+        this.rateLimitRetries = rateLimitRetries;
+    }
+
     @Override
     public void validate() {
         if (StringUtil.isBlank(baseAddress)) {
@@ -78,6 +366,59 @@ public class SNConnectorConfiguration extends AbstractConfiguration implements S
         if (StringUtil.isBlank(SecurityUtil.decrypt(password))) {
             failValidation("Password Id cannot be null or empty.");
         }
+        if (maxConnections <= 0 || maxConnectionsPerRoute <= 0) {
+            failValidation("Connection pool limits must be greater than zero.");
+        }
+        if (maxConnectionsPerRoute > maxConnections) {
+            failValidation("Max connections per route cannot exceed max connections.");
+        }
+        if (connectionMaxIdle < 0) {
+            failValidation("Connection max idle time cannot be negative.");
+        }
+        if (scanChunkSize <= 0) {
+            failValidation("Scan chunk size must be greater than zero.");
+        }
+        if (readAheadPages < 0) {
+            failValidation("Read-ahead pages cannot be negative.");
+        }
+        if (scanParallelism <= 0) {
+            failValidation("Scan parallelism must be greater than zero.");
+        }
+        if (batchChunkSize <= 0) {
+            failValidation("Batch chunk size must be greater than zero.");
+        }
+        if (batchRetries < 0) {
+            failValidation("Batch retries cannot be negative.");
+        }
+        for (String table : tables) {
+            if (table == null || !table.matches("\\w+")) {
+                failValidation("Invalid table name: " + table);
+            }
+        }
+        if (StringUtil.isNotBlank(deletedRecordsTable) && !deletedRecordsTable.matches("\\w+")) {
+            failValidation("Invalid deleted records table name: " + deletedRecordsTable);
+        }
+        if (resourceCacheSize < 0 || resourceCacheTtl < 0) {
+            failValidation("Resource cache size and time-to-live cannot be negative.");
+        }
+        if (writeCacheSize < 0 || writeCacheTtl < 0) {
+            failValidation("Write cache size and time-to-live cannot be negative.");
+        }
+        if (nameIndexSize < 0 || nameIndexTtl < 0) {
+            failValidation("Name index size and time-to-live cannot be negative.");
+        }
+        if (notFoundCacheSize < 0 || notFoundCacheTtl < 0) {
+            failValidation("Not found cache size and time-to-live cannot be negative.");
+        }
+        if (queryCacheSize < 0 || queryCacheTtl < 0) {
+            failValidation("Query cache size and time-to-live cannot be negative.");
+        }
+        if (rateLimit < 0 || Double.isNaN(rateLimit) || Double.isInfinite(rateLimit)) {
+            failValidation("Rate limit must be a non-negative number.");
+        }
+        if (rateLimitRetries < 0) {
+            failValidation("Rate limit retries cannot be negative.");
+        }
     }
 
     @Override
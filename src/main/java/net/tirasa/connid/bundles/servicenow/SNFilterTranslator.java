@@ -0,0 +1,184 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow;
+
+import java.util.List;
+import net.tirasa.connid.bundles.servicenow.dto.ResourceCodec;
+import net.tirasa.connid.bundles.servicenow.utils.SNAttributes;
+import net.tirasa.connid.bundles.servicenow.utils.SNUtils;
+import org.identityconnectors.framework.common.objects.Attribute;
+import org.identityconnectors.framework.common.objects.Name;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.identityconnectors.framework.common.objects.OperationalAttributes;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.identityconnectors.framework.common.objects.filter.AbstractFilterTranslator;
+import org.identityconnectors.framework.common.objects.filter.AttributeFilter;
+import org.identityconnectors.framework.common.objects.filter.ContainsAllValuesFilter;
+import org.identityconnectors.framework.common.objects.filter.ContainsFilter;
+import org.identityconnectors.framework.common.objects.filter.EndsWithFilter;
+import org.identityconnectors.framework.common.objects.filter.EqualsFilter;
+import org.identityconnectors.framework.common.objects.filter.Filter;
+import org.identityconnectors.framework.common.objects.filter.GreaterThanFilter;
+import org.identityconnectors.framework.common.objects.filter.GreaterThanOrEqualFilter;
+import org.identityconnectors.framework.common.objects.filter.LessThanFilter;
+import org.identityconnectors.framework.common.objects.filter.LessThanOrEqualFilter;
+import org.identityconnectors.framework.common.objects.filter.StartsWithFilter;
+
+/**
+ * Translates ConnId filters into Service Now encoded queries.
+ *
+ * Encoded queries offer no way to escape the {@code ^} separator, hence any condition whose value contains it (or a
+ * line break) is not translated and left to client-side filtering, as any condition on unknown attributes.
+ * OR can only join single conditions: more complex disjunctions are returned as separate queries, to be joined with
+ * {@code ^NQ}.
+ */
+public class SNFilterTranslator extends AbstractFilterTranslator<String> {
+
+    private static final String QUERY_OR = "^OR";
+
+    private final ObjectClass objectClass;
+
+    private final ResourceCodec codec;
+
+    public SNFilterTranslator(final ObjectClass objectClass) {
+        this(objectClass, ResourceCodec.of(objectClass));
+    }
+
+    public SNFilterTranslator(final ObjectClass objectClass, final ResourceCodec codec) {
+        this.objectClass = objectClass;
+        this.codec = codec;
+    }
+
+    /**
+     * Translates the given filter into a single encoded query.
+     *
+     * @param filter filter to translate, can be null
+     * @return encoded query, or null if nothing could be translated
+     */
+    public String toEncodedQuery(final Filter filter) {
+        if (filter == null) {
+            return null;
+        }
+        List<String> queries = translate(filter);
+        return queries.isEmpty() ? null : String.join(SNUtils.QUERY_NEW_QUERY, queries);
+    }
+
+    @Override
+    protected String createAndExpression(final String leftExpression, final String rightExpression) {
+        return leftExpression + SNUtils.QUERY_AND + rightExpression;
+    }
+
+    @Override
+    protected String createOrExpression(final String leftExpression, final String rightExpression) {
+        return isDisjunction(leftExpression) && isDisjunction(rightExpression)
+                ? leftExpression + QUERY_OR + rightExpression
+                : null;
+    }
+
+    @Override
+    protected String createEqualsExpression(final EqualsFilter filter, final boolean not) {
+        List<Object> values = filter.getAttribute().getValue();
+        if (values == null || values.isEmpty()) {
+            String field = toField(filter);
+            return field == null ? null : field + (not ? "ISNOTEMPTY" : "ISEMPTY");
+        }
+        return values.size() == 1 ? condition(filter, not ? "!=" : "=") : null;
+    }
+
+    @Override
+    protected String createContainsAllValuesExpression(final ContainsAllValuesFilter filter, final boolean not) {
+        List<Object> values = filter.getAttribute().getValue();
+        return values != null && values.size() == 1 ? condition(filter, not ? "!=" : "=") : null;
+    }
+
+    @Override
+    protected String createContainsExpression(final ContainsFilter filter, final boolean not) {
+        return condition(filter, not ? "NOT LIKE" : "LIKE");
+    }
+
+    @Override
+    protected String createStartsWithExpression(final StartsWithFilter filter, final boolean not) {
+        return not ? null : condition(filter, "STARTSWITH");
+    }
+
+    @Override
+    protected String createEndsWithExpression(final EndsWithFilter filter, final boolean not) {
+        return not ? null : condition(filter, "ENDSWITH");
+    }
+
+    @Override
+    protected String createGreaterThanExpression(final GreaterThanFilter filter, final boolean not) {
+        return condition(filter, not ? "<=" : ">");
+    }
+
+    @Override
+    protected String createGreaterThanOrEqualExpression(final GreaterThanOrEqualFilter filter, final boolean not) {
+        return condition(filter, not ? "<" : ">=");
+    }
+
+    @Override
+    protected String createLessThanExpression(final LessThanFilter filter, final boolean not) {
+        return condition(filter, not ? ">=" : "<");
+    }
+
+    @Override
+    protected String createLessThanOrEqualExpression(final LessThanOrEqualFilter filter, final boolean not) {
+        return condition(filter, not ? ">" : "<=");
+    }
+
+    private String condition(final AttributeFilter filter, final String operator) {
+        String field = toField(filter);
+        String value = toValue(filter.getAttribute());
+        return field == null || value == null ? null : field + operator + value;
+    }
+
+    private String toField(final AttributeFilter filter) {
+        String name = filter.getAttribute().getName();
+        if (Uid.NAME.equals(name)) {
+            return SNAttributes.RESOURCE_ATTRIBUTE_ID;
+        }
+        if (Name.NAME.equals(name)) {
+            String field = ObjectClass.ACCOUNT.equals(objectClass)
+                    ? SNAttributes.USER_ATTRIBUTE_USERNAME
+                    : SNAttributes.RESOURCE_ATTRIBUTE_NAME;
+            // Service Now ignores conditions on unknown columns, as tables without name
+            return codec.indexOf(field) == -1 ? null : field;
+        }
+        if (OperationalAttributes.ENABLE_NAME.equals(name)) {
+            return SNAttributes.RESOURCE_ATTRIBUTE_ACTIVE;
+        }
+        return codec.indexOf(name) == -1 ? null : name;
+    }
+
+    private static String toValue(final Attribute attribute) {
+        List<Object> values = attribute.getValue();
+        if (values == null || values.size() != 1 || values.get(0) == null) {
+            return null;
+        }
+
+        String value = values.get(0).toString();
+        return value.isEmpty() || value.contains(SNUtils.QUERY_AND) || value.contains("\n") || value.contains("\r")
+                ? null
+                : value;
+    }
+
+    /**
+     * @return whether the given encoded query is made of single conditions joined by OR
+     */
+    private static boolean isDisjunction(final String query) {
+        return !query.replace(QUERY_OR, "").contains(SNUtils.QUERY_AND);
+    }
+}
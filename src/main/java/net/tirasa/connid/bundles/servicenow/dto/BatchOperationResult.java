@@ -0,0 +1,97 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public class BatchOperationResult implements Serializable {
+
+    private static final long serialVersionUID = -5519398071648011570L;
+
+    @JsonProperty("id")
+    private String id;
+
+    @JsonProperty("status_code")
+    private int statusCode;
+
+    @JsonProperty("status_text")
+    private String statusText;
+
+    @JsonProperty("body")
+    private String body;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(final String id) {
+        this.id = id;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public void setStatusCode(final int statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    public String getStatusText() {
+        return statusText;
+    }
+
+    public void setStatusText(final String statusText) {
+        this.statusText = statusText;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(final String body) {
+        this.body = body;
+    }
+
+    /**
+     * @return body of the operation response, as sent by Service Now it is Base64 encoded
+     */
+    public String decodeBody() {
+        return body == null ? null : new String(Base64.getDecoder().decode(body), StandardCharsets.UTF_8);
+    }
+
+    public boolean isSuccessful() {
+        return statusCode >= 200 && statusCode < 300;
+    }
+
+    /**
+     * @return whether the operation failed for a reason that might not occur again (throttling or server error)
+     */
+    public boolean isTransientFailure() {
+        return statusCode == 429 || statusCode >= 500;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchOperationResult{"
+                + "id=" + id
+                + ", statusCode=" + statusCode
+                + ", statusText=" + statusText
+                + '}';
+    }
+}
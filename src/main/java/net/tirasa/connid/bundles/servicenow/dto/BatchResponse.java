@@ -0,0 +1,68 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchResponse implements Serializable {
+
+    private static final long serialVersionUID = 2218345076291834467L;
+
+    @JsonProperty("batch_request_id")
+    private String batchRequestId;
+
+    @JsonProperty("serviced_requests")
+    private List<BatchOperationResult> servicedRequests = new ArrayList<>();
+
+    @JsonProperty("unserviced_requests")
+    private List<String> unservicedRequests = new ArrayList<>();
+
+    public String getBatchRequestId() {
+        return batchRequestId;
+    }
+
+    public void setBatchRequestId(final String batchRequestId) {
+        this.batchRequestId = batchRequestId;
+    }
+
+    public List<BatchOperationResult> getServicedRequests() {
+        return servicedRequests;
+    }
+
+    public void setServicedRequests(final List<BatchOperationResult> servicedRequests) {
+        this.servicedRequests = servicedRequests;
+    }
+
+    public List<String> getUnservicedRequests() {
+        return unservicedRequests;
+    }
+
+    public void setUnservicedRequests(final List<String> unservicedRequests) {
+        this.unservicedRequests = unservicedRequests;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResponse{"
+                + "batchRequestId=" + batchRequestId
+                + ", servicedRequests=" + servicedRequests
+                + ", unservicedRequests=" + unservicedRequests
+                + '}';
+    }
+}
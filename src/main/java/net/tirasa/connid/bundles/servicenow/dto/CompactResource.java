@@ -0,0 +1,95 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow.dto;
+
+import net.tirasa.connid.bundles.servicenow.utils.SNAttributes;
+import org.identityconnectors.framework.common.objects.Attribute;
+
+/**
+ * Read-only, compact form of a {@link Resource}, meant to be held in memory in large numbers.
+ *
+ * Only non-null values are kept, packed in field index order; a bitmap over the field indexes of the
+ * {@link ResourceCodec} tells which ones are present. References are kept as their sys_id.
+ */
+public final class CompactResource {
+
+    private final ResourceCodec codec;
+
+    private final long[] present;
+
+    private final String[] values;
+
+    CompactResource(final ResourceCodec codec, final long[] present, final String[] values) {
+        this.codec = codec;
+        this.present = present;
+        this.values = values;
+    }
+
+    /**
+     * @param index field index
+     * @return value of the given field, sys_id for references, null if not available
+     */
+    public String get(final int index) {
+        int word = index >>> 6;
+        long bit = 1L << index;
+        if (word >= present.length || (present[word] & bit) == 0) {
+            return null;
+        }
+
+        int position = Long.bitCount(present[word] & (bit - 1));
+        for (int i = 0; i < word; i++) {
+            position += Long.bitCount(present[i]);
+        }
+        return values[position];
+    }
+
+    /**
+     * @param name attribute name
+     * @return value of the given attribute, sys_id for references, null if not available
+     */
+    public String get(final String name) {
+        int index = codec.indexOf(name);
+        return index == -1 ? null : get(index);
+    }
+
+    public String getSysId() {
+        return get(SNAttributes.RESOURCE_ATTRIBUTE_ID);
+    }
+
+    public String getUserName() {
+        return get(SNAttributes.USER_ATTRIBUTE_USERNAME);
+    }
+
+    public String getName() {
+        return get(SNAttributes.RESOURCE_ATTRIBUTE_NAME);
+    }
+
+    public Attribute toAttribute(final int index) {
+        return codec.toAttribute(codec.name(index), get(index));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("CompactResource{");
+        for (int index = 0, position = 0; position < values.length; index++) {
+            if ((present[index >>> 6] & (1L << index)) != 0) {
+                builder.append(position == 0 ? "" : ", ")
+                        .append(codec.name(index)).append('=').append(values[position++]);
+            }
+        }
+        return builder.append('}').toString();
+    }
+}
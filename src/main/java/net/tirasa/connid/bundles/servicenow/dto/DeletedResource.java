@@ -0,0 +1,79 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Record of a deleted-records table (such as sys_audit_delete), tracking the deletion of a record of another table.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class DeletedResource extends Resource {
+
+    @JsonProperty("tablename")
+    private String tablename;
+
+    @JsonProperty("documentkey")
+    private String documentkey;
+
+    @JsonProperty("payload")
+    private String payload;
+
+    public String getTablename() {
+        return tablename;
+    }
+
+    public void setTablename(final String tablename) {
+        this.tablename = tablename;
+    }
+
+    public String getDocumentkey() {
+        return documentkey;
+    }
+
+    public void setDocumentkey(final String documentkey) {
+        this.documentkey = documentkey;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(final String payload) {
+        this.payload = payload;
+    }
+
+    /**
+     * @param element column of the deleted record
+     * @return value of the given column, as found in the XML payload of the deleted record, or null
+     */
+    public String getPayloadValue(final String element) {
+        if (payload == null) {
+            return null;
+        }
+        Matcher matcher = Pattern.compile("<" + Pattern.quote(element) + "(?:\\s[^>]*)?>([^<]*)</").matcher(payload);
+        return matcher.find() ? matcher.group(1).trim() : null;
+    }
+
+    @Override
+    public String toString() {
+        return "DeletedResource{" + "tablename=" + tablename + ", documentkey=" + documentkey + "} "
+                + super.toString();
+    }
+}
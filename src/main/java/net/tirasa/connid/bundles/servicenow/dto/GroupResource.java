@@ -0,0 +1,247 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import java.util.Set;
+import net.tirasa.connid.bundles.servicenow.utils.GroupResourceDeserializer;
+import org.identityconnectors.framework.common.objects.Attribute;
+
+/**
+ * Record of the sys_user_group table.
+ */
+@JsonDeserialize(using = GroupResourceDeserializer.class)
+public class GroupResource implements BaseEntity {
+
+    @JsonProperty("sys_id")
+    private String sysId;
+
+    @JsonProperty("sys_created_by")
+    private String sysCreatedBy;
+
+    @JsonProperty("sys_created_on")
+    private String sysCreatedOn;
+
+    @JsonProperty("sys_updated_by")
+    private String sysUpdatedBy;
+
+    @JsonProperty("sys_updated_on")
+    private String sysUpdatedOn;
+
+    @JsonProperty("sys_mod_count")
+    private String sysModCount;
+
+    @JsonProperty("sys_domain")
+    private SNComplex sysDomain;
+
+    @JsonProperty("sys_domain_path")
+    private String sysDomainPath;
+
+    @JsonProperty("sys_tags")
+    private String sysTags;
+
+    @JsonProperty("active")
+    private String active;
+
+    @JsonProperty("name")
+    private String name;
+
+    @JsonProperty("description")
+    private String description;
+
+    @JsonProperty("email")
+    private String email;
+
+    @JsonProperty("manager")
+    private SNComplex manager;
+
+    @JsonProperty("parent")
+    private SNComplex parent;
+
+    @JsonProperty("cost_center")
+    private SNComplex costCenter;
+
+    @JsonProperty("roles")
+    private String roles;
+
+    @JsonProperty("source")
+    private String source;
+
+    @Override
+    public String getSysId() {
+        return sysId;
+    }
+
+    @Override
+    public void setSysId(final String sysId) {
+        this.sysId = sysId;
+    }
+
+    public String getSysCreatedBy() {
+        return sysCreatedBy;
+    }
+
+    public void setSysCreatedBy(final String sysCreatedBy) {
+        this.sysCreatedBy = sysCreatedBy;
+    }
+
+    public String getSysCreatedOn() {
+        return sysCreatedOn;
+    }
+
+    public void setSysCreatedOn(final String sysCreatedOn) {
+        this.sysCreatedOn = sysCreatedOn;
+    }
+
+    public String getSysUpdatedBy() {
+        return sysUpdatedBy;
+    }
+
+    public void setSysUpdatedBy(final String sysUpdatedBy) {
+        this.sysUpdatedBy = sysUpdatedBy;
+    }
+
+    public String getSysUpdatedOn() {
+        return sysUpdatedOn;
+    }
+
+    public void setSysUpdatedOn(final String sysUpdatedOn) {
+        this.sysUpdatedOn = sysUpdatedOn;
+    }
+
+    public String getSysModCount() {
+        return sysModCount;
+    }
+
+    public void setSysModCount(final String sysModCount) {
+        this.sysModCount = sysModCount;
+    }
+
+    public SNComplex getSysDomain() {
+        return sysDomain;
+    }
+
+    public void setSysDomain(final SNComplex sysDomain) {
+        this.sysDomain = sysDomain;
+    }
+
+    public String getSysDomainPath() {
+        return sysDomainPath;
+    }
+
+    public void setSysDomainPath(final String sysDomainPath) {
+        this.sysDomainPath = sysDomainPath;
+    }
+
+    public String getSysTags() {
+        return sysTags;
+    }
+
+    public void setSysTags(final String sysTags) {
+        this.sysTags = sysTags;
+    }
+
+    public String getActive() {
+        return active;
+    }
+
+    public void setActive(final String active) {
+        this.active = active;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(final String description) {
+        this.description = description;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(final String email) {
+        this.email = email;
+    }
+
+    public SNComplex getManager() {
+        return manager;
+    }
+
+    public void setManager(final SNComplex manager) {
+        this.manager = manager;
+    }
+
+    public SNComplex getParent() {
+        return parent;
+    }
+
+    public void setParent(final SNComplex parent) {
+        this.parent = parent;
+    }
+
+    public SNComplex getCostCenter() {
+        return costCenter;
+    }
+
+    public void setCostCenter(final SNComplex costCenter) {
+        this.costCenter = costCenter;
+    }
+
+    public String getRoles() {
+        return roles;
+    }
+
+    public void setRoles(final String roles) {
+        this.roles = roles;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(final String source) {
+        this.source = source;
+    }
+
+    @JsonIgnore
+    @Override
+    public Set<Attribute> toAttributes() {
+        return ResourceCodec.GROUP.toAttributes(this);
+    }
+
+    @JsonIgnore
+    @Override
+    public void fromAttributes(final Set<Attribute> attributes, final String baseAddress) {
+        ResourceCodec.GROUP.fromAttributes(this, attributes, baseAddress);
+    }
+
+    @Override
+    public String toString() {
+        return ResourceCodec.GROUP.toString(this);
+    }
+}
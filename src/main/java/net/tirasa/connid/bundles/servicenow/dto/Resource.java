@@ -17,24 +17,11 @@ package net.tirasa.connid.bundles.servicenow.dto;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import java.lang.reflect.Field;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import net.tirasa.connid.bundles.servicenow.utils.SNAttributes;
-import net.tirasa.connid.bundles.servicenow.utils.SNUtils;
-import org.identityconnectors.common.CollectionUtil;
-import org.identityconnectors.common.logging.Log;
 import org.identityconnectors.framework.common.objects.Attribute;
 
 public class Resource implements BaseEntity {
 
-    @JsonIgnore
-    private static final Log LOG = Log.getLog(BaseEntity.class);
-
     @JsonProperty("sys_id")
     private String sysId;
 
@@ -1416,148 +1403,13 @@ public class Resource implements BaseEntity {
     @JsonIgnore
     @Override
     public Set<Attribute> toAttributes() throws IllegalArgumentException, IllegalAccessException {
-        Set<Attribute> attrs = new HashSet<>();
-
-        Field[] fields = Resource.class.getDeclaredFields();
-        for (Field field : fields) {
-            if (!field.isAnnotationPresent(JsonIgnore.class) && field.isAnnotationPresent(JsonProperty.class)) {
-                field.setAccessible(true);
-
-                String newName = SNUtils.fromUnderscoredToCamelCase(field.getName());
-                Object value = field.get(this);
-                if (value != null) {
-                    switch (newName) {
-                        case "manager":
-                            value = SNComplex.class.cast(value).getValue();
-                            break;
-                        case "department":
-                            value = SNComplex.class.cast(value).getValue();
-                            break;
-                        case "cost_center":
-                            value = SNComplex.class.cast(value).getValue();
-                            break;
-                        case "opened_by":
-                            value = SNComplex.class.cast(value).getValue();
-                            break;
-                        case "sys_domain":
-                            value = SNComplex.class.cast(value).getValue();
-                            break;
-                        case "location":
-                            value = SNComplex.class.cast(value).getValue();
-                            break;
-                        case "company":
-                            value = SNComplex.class.cast(value).getValue();
-                            break;
-                        case "assignment_group":
-                            value = SNComplex.class.cast(value).getValue();
-                            break;
-                        case "cmdb_ci":
-                            value = SNComplex.class.cast(value).getValue();
-                            break;
-                        case "default_perspective":
-                            value = SNComplex.class.cast(value).getValue();
-                            break;
-                        case "parent":
-                            value = SNComplex.class.cast(value).getValue();
-                            break;
-                        case "ldap_server":
-                            value = SNComplex.class.cast(value).getValue();
-                            break;
-                    }
-                }
-                attrs.add(SNAttributes.buildAttributeFromClassField(field,
-                        SNUtils.fromCamelCaseToUnderscored(field.getName()),
-                        value).build());
-            }
-        }
-
-        return attrs;
+        return ResourceCodec.RESOURCE.toAttributes(this);
     }
 
     @JsonIgnore
     @Override
     public void fromAttributes(final Set<Attribute> attributes, final String baseAddress) {
-        for (Attribute attribute : attributes) {
-            if (!CollectionUtil.isEmpty(attribute.getValue())) {
-                List<Object> values = attribute.getValue();
-                String localName = attribute.getName();
-
-                if (localName.contains("__")) {
-                    LOG.ok("Skipping attribute {0}, while building Resource object", localName);
-                    continue;
-                }
-
-                try {
-                    String newName = SNUtils.fromUnderscoredToCamelCase(localName);
-                    Field field = Resource.class.getDeclaredField(newName);
-                    field.setAccessible(true);
-
-                    switch (newName) {
-                        case "manager":
-                            manager = new SNComplex(String.class.cast(values.get(0)));
-                            break;
-                        case "department":
-                            department = new SNComplex(String.class.cast(values.get(0)));
-                            break;
-                        case "cost_center":
-                            costCenter = new SNComplex(String.class.cast(values.get(0)));
-                            break;
-                        case "opened_by":
-                            openedBy = new SNComplex(String.class.cast(values.get(0)));
-                            break;
-                        case "sys_domain":
-                            sysDomain = new SNComplex(String.class.cast(values.get(0)));
-                            break;
-                        case "location":
-                            location = new SNComplex(String.class.cast(values.get(0)));
-                            break;
-                        case "company":
-                            company = new SNComplex(String.class.cast(values.get(0)));
-                            break;
-                        case "assignment_group":
-                            assignmentGroup = new SNComplex(String.class.cast(values.get(0)));
-                            break;
-                        case "cmdb_ci":
-                            cmdbCi = new SNComplex(String.class.cast(values.get(0)));
-                            break;
-                        case "default_perspective":
-                            defaultPerspective = new SNComplex(String.class.cast(values.get(0)));
-                            break;
-                        case "schedule":
-                            schedule = new SNComplex(String.class.cast(values.get(0)));
-                            break;
-                        case "parent":
-                            parent = new SNComplex(String.class.cast(values.get(0)));
-                            break;
-                        case "ldapServer":
-                            ldapServer = new SNComplex((String) values.get(0));
-                            ldapServer.setLink(baseAddress + "api/now/table/ldap_server_config/" + values.get(0));
-                            break;
-                        default:
-                            field.set(this, values.get(0) instanceof String ? String.class.cast(values.get(0))
-                                    : (values.get(0) instanceof Boolean ? Boolean.class.cast(values.get(0)) : null));
-                    }
-                } catch (NoSuchFieldException | SecurityException ex) {
-                    LOG.error(ex, "Field {0} not found", localName);
-                } catch (IllegalArgumentException | IllegalAccessException ex) {
-                    LOG.error(ex, "While setting value to field");
-                }
-            }
-        }
-    }
-
-    @JsonIgnore
-    public static Map<String, String> asMapAttributeField() {
-        Map<String, String> map = new HashMap<>();
-        Field[] fields = Resource.class.getDeclaredFields();
-
-        for (Field field : fields) {
-            if (!field.isAnnotationPresent(JsonIgnore.class) && field.isAnnotationPresent(JsonProperty.class)) {
-                map.put(field.getAnnotation(JsonProperty.class).value(), field.getName());
-            }
-        }
-
-        return Collections.unmodifiableMap(map);
+        ResourceCodec.RESOURCE.fromAttributes(this, attributes, baseAddress);
     }
 
     @Override
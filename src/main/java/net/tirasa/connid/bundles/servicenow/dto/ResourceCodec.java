@@ -0,0 +1,314 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import net.tirasa.connid.bundles.servicenow.utils.SNAttributes;
+import net.tirasa.connid.bundles.servicenow.utils.SNUtils;
+import org.identityconnectors.common.CollectionUtil;
+import org.identityconnectors.common.logging.Log;
+import org.identityconnectors.framework.common.objects.Attribute;
+import org.identityconnectors.framework.common.objects.AttributeBuilder;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+
+/**
+ * Converts Service Now records ({@link Resource} and per-table classes) from / to ConnId attributes.
+ *
+ * Fields are inspected once, when the codec is built: each mapped field gets an index, holding its attribute name
+ * (the JSON property name) and a {@link VarHandle}; attribute names are resolved to indexes via a map built once as
+ * well, so that no reflection nor name conversion takes place while converting.
+ * Subclasses can map fields differently, as {@link TableCodec} does for tables discovered at runtime.
+ */
+public class ResourceCodec {
+
+    private static final Log LOG = Log.getLog(ResourceCodec.class);
+
+    public static final ResourceCodec RESOURCE = new ResourceCodec(null, Resource.class);
+
+    public static final ResourceCodec USER = new ResourceCodec("sys_user", UserResource.class);
+
+    public static final ResourceCodec GROUP = new ResourceCodec("sys_user_group", GroupResource.class);
+
+    /**
+     * @param objectClass object class
+     * @return codec of the records of the table backing the given object class
+     */
+    public static ResourceCodec of(final ObjectClass objectClass) {
+        return ObjectClass.GROUP.equals(objectClass) ? GROUP : USER;
+    }
+
+    private final String table;
+
+    private final Class<? extends BaseEntity> clazz;
+
+    private final String[] names;
+
+    private final VarHandle[] handles;
+
+    /**
+     * Whether each field is a reference to another record, whose sys_id is the attribute value.
+     */
+    private final boolean[] references;
+
+    private final Map<String, Integer> indexes;
+
+    /**
+     * @param table name of the table whose records are held by the given class, can be null
+     * @param clazz class holding records, fields annotated with {@link JsonProperty} are mapped
+     */
+    public ResourceCodec(final String table, final Class<? extends BaseEntity> clazz) {
+        this.table = table;
+        this.clazz = clazz;
+
+        List<Field> fields = new ArrayList<>();
+        for (Field field : clazz.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())
+                    && !field.isAnnotationPresent(JsonIgnore.class)
+                    && field.isAnnotationPresent(JsonProperty.class)) {
+                fields.add(field);
+            }
+        }
+
+        names = new String[fields.size()];
+        handles = new VarHandle[fields.size()];
+        references = new boolean[fields.size()];
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+            for (int i = 0; i < fields.size(); i++) {
+                Field field = fields.get(i);
+                names[i] = field.getAnnotation(JsonProperty.class).value();
+                handles[i] = lookup.unreflectVarHandle(field);
+                references[i] = field.getType() == SNComplex.class;
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Could not access fields of " + clazz.getName(), e);
+        }
+        indexes = indexes(names);
+    }
+
+    /**
+     * For subclasses not relying on fields, which shall override {@link #get(BaseEntity, int)},
+     * {@link #set(BaseEntity, int, Object, String)}, {@link #setReference(BaseEntity, int, String, String)} and
+     * {@link #reader()}.
+     *
+     * @param table table name
+     * @param clazz class holding records
+     * @param names attribute names
+     * @param references whether each attribute is a reference to another record
+     */
+    protected ResourceCodec(
+            final String table,
+            final Class<? extends BaseEntity> clazz,
+            final String[] names,
+            final boolean[] references) {
+
+        this.table = table;
+        this.clazz = clazz;
+        this.names = names.clone();
+        this.handles = null;
+        this.references = references.clone();
+        this.indexes = indexes(names);
+    }
+
+    private static Map<String, Integer> indexes(final String[] names) {
+        Map<String, Integer> byName = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            byName.put(names[i], i);
+        }
+        return Collections.unmodifiableMap(byName);
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * @return reader of records, as returned by Service Now
+     */
+    public ObjectReader reader() {
+        return SNUtils.MAPPER.readerFor(clazz);
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * @return attribute names, in field index order
+     */
+    public List<String> names() {
+        return List.of(names);
+    }
+
+    public String name(final int index) {
+        return names[index];
+    }
+
+    /**
+     * @param name attribute name
+     * @return index of the field mapped to the given attribute name, -1 if none
+     */
+    public int indexOf(final String name) {
+        Integer index = indexes.get(name);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Resolves the given attribute names to field indexes, to be resolved once and used for several conversions.
+     *
+     * @param names attribute names
+     * @return indexes of the fields mapped to the given attribute names, names not mapped are ignored
+     */
+    public int[] indexesOf(final Collection<String> names) {
+        return names.stream().mapToInt(this::indexOf).filter(index -> index != -1).toArray();
+    }
+
+    /**
+     * @param resource resource
+     * @param index field index
+     * @return attribute value of the given field, sys_id for references
+     */
+    public String get(final BaseEntity resource, final int index) {
+        Object value = handles[index].get(resource);
+        if (value == null) {
+            return null;
+        }
+        return references[index] ? ((SNComplex) value).getValue() : (String) value;
+    }
+
+    /**
+     * @param resource resource
+     * @param index field index
+     * @param value attribute value, sys_id for references
+     * @param baseAddress Service Now base address, used to build links to referenced records
+     */
+    public void set(final BaseEntity resource, final int index, final Object value, final String baseAddress) {
+        String string = value == null ? null : value.toString();
+        if (references[index]) {
+            SNComplex reference = null;
+            if (string != null) {
+                reference = new SNComplex(string);
+                if (SNAttributes.RESOURCE_ATTRIBUTE_LDAP_SERVER.equals(names[index])) {
+                    reference.setLink(baseAddress + "api/now/table/ldap_server_config/" + string);
+                }
+            }
+            handles[index].set(resource, reference);
+        } else {
+            handles[index].set(resource, string);
+        }
+    }
+
+    /**
+     * Sets a reference field, as read from a Service Now response.
+     *
+     * @param resource resource
+     * @param index field index, must be a reference
+     * @param value sys_id of the referenced record
+     * @param link URL of the referenced record
+     */
+    public void setReference(final BaseEntity resource, final int index, final String value, final String link) {
+        SNComplex reference = new SNComplex(value);
+        reference.setLink(link);
+        handles[index].set(resource, reference);
+    }
+
+    public boolean isReference(final int index) {
+        return references[index];
+    }
+
+    public Attribute toAttribute(final BaseEntity resource, final int index) {
+        return toAttribute(names[index], get(resource, index));
+    }
+
+    Attribute toAttribute(final String name, final String value) {
+        return value == null ? AttributeBuilder.build(name) : AttributeBuilder.build(name, value);
+    }
+
+    /**
+     * Builds the compact form of the given resource, keeping only the given fields.
+     *
+     * @param resource resource
+     * @param indexes indexes of the fields to keep
+     * @return compact form of the given resource
+     */
+    public CompactResource compact(final BaseEntity resource, final int[] indexes) {
+        long[] present = new long[(names.length + 63) >>> 6];
+        int count = 0;
+        for (int index : indexes) {
+            long bit = 1L << index;
+            if ((present[index >>> 6] & bit) == 0 && get(resource, index) != null) {
+                present[index >>> 6] |= bit;
+                count++;
+            }
+        }
+
+        String[] values = new String[count];
+        int position = 0;
+        for (int word = 0; word < present.length; word++) {
+            for (long bits = present[word]; bits != 0; bits &= bits - 1) {
+                values[position++] = get(resource, (word << 6) + Long.numberOfTrailingZeros(bits));
+            }
+        }
+        return new CompactResource(this, present, values);
+    }
+
+    public Set<Attribute> toAttributes(final BaseEntity resource) {
+        Set<Attribute> attrs = new HashSet<>(names.length * 4 / 3 + 1);
+        for (int i = 0; i < names.length; i++) {
+            attrs.add(toAttribute(resource, i));
+        }
+        return attrs;
+    }
+
+    public void fromAttributes(final BaseEntity resource, final Set<Attribute> attributes, final String baseAddress) {
+        for (Attribute attribute : attributes) {
+            if (!CollectionUtil.isEmpty(attribute.getValue())) {
+                int index = indexOf(attribute.getName());
+                if (index == -1) {
+                    LOG.ok("Skipping attribute {0}, while building Resource object", attribute.getName());
+                } else {
+                    set(resource, index, attribute.getValue().get(0), baseAddress);
+                }
+            }
+        }
+    }
+
+    public String toString(final BaseEntity resource) {
+        StringBuilder builder = new StringBuilder(clazz.getSimpleName()).append('{');
+        for (int i = 0; i < names.length; i++) {
+            String value = get(resource, i);
+            if (value != null && !SNAttributes.USER_ATTRIBUTE_PASSWORD.equals(names[i])) {
+                builder.append(builder.charAt(builder.length() - 1) == '{' ? "" : ", ")
+                        .append(names[i]).append('=').append(value);
+            }
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow.dto;
+
+import java.util.Objects;
+import java.util.regex.Pattern;
+import org.identityconnectors.common.StringUtil;
+import org.identityconnectors.framework.common.exceptions.InvalidAttributeValueException;
+
+/**
+ * Position in the sequence of the records of a table ordered by sys_updated_on, then sys_id: the sys_id breaks ties
+ * between records updated within the same second.
+ */
+public final class SyncWatermark {
+
+    /**
+     * Position before any record.
+     */
+    public static final SyncWatermark NONE = new SyncWatermark(null, null);
+
+    private static final String SEPARATOR = ",";
+
+    private static final Pattern UPDATED_ON_PATTERN = Pattern.compile("[\\d\\-: ]+");
+
+    private static final Pattern SYS_ID_PATTERN = Pattern.compile("\\w+");
+
+    /**
+     * @param value as returned by {@link #toString()}, can be null or empty
+     * @return parsed watermark
+     */
+    public static SyncWatermark parse(final String value) {
+        if (StringUtil.isBlank(value)) {
+            return NONE;
+        }
+
+        String[] parts = value.split(SEPARATOR, -1);
+        if (parts.length != 2
+                || !UPDATED_ON_PATTERN.matcher(parts[0]).matches()
+                || !SYS_ID_PATTERN.matcher(parts[1]).matches()) {
+
+            throw new InvalidAttributeValueException("Invalid sync token: " + value);
+        }
+        return new SyncWatermark(parts[0], parts[1]);
+    }
+
+    private final String updatedOn;
+
+    private final String sysId;
+
+    public SyncWatermark(final String updatedOn, final String sysId) {
+        this.updatedOn = updatedOn;
+        this.sysId = sysId;
+    }
+
+    public String getUpdatedOn() {
+        return updatedOn;
+    }
+
+    public String getSysId() {
+        return sysId;
+    }
+
+    public boolean isNone() {
+        return updatedOn == null;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof SyncWatermark)) {
+            return false;
+        }
+        SyncWatermark other = (SyncWatermark) obj;
+        return Objects.equals(updatedOn, other.updatedOn) && Objects.equals(sysId, other.sysId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(updatedOn, sysId);
+    }
+
+    @Override
+    public String toString() {
+        return isNone() ? "" : updatedOn + SEPARATOR + sysId;
+    }
+}
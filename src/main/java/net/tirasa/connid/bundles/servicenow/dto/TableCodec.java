@@ -0,0 +1,87 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow.dto;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import java.util.List;
+import java.util.stream.Stream;
+import net.tirasa.connid.bundles.servicenow.utils.ResourceDeserializer;
+import net.tirasa.connid.bundles.servicenow.utils.SNAttributes;
+import net.tirasa.connid.bundles.servicenow.utils.SNUtils;
+
+/**
+ * Codec of a table whose columns are only known at runtime, reading records into {@link TableRecord} instances.
+ * The sys_id column is always mapped, at index 0.
+ */
+public class TableCodec extends ResourceCodec {
+
+    static final int SYS_ID_INDEX = 0;
+
+    private final ObjectReader reader;
+
+    /**
+     * @param table table name
+     * @param columns column names, sys_id is added if missing
+     * @param referenceColumns names of the columns referencing other records
+     */
+    public TableCodec(final String table, final List<String> columns, final List<String> referenceColumns) {
+        super(table, TableRecord.class, names(columns), references(names(columns), referenceColumns));
+
+        ResourceDeserializer<TableRecord> deserializer = new ResourceDeserializer<TableRecord>(
+                this, () -> new TableRecord(this)) {
+        };
+        reader = SNUtils.MAPPER.copy()
+                .registerModule(new SimpleModule(table).addDeserializer(TableRecord.class, deserializer))
+                .readerFor(TableRecord.class);
+    }
+
+    private static String[] names(final List<String> columns) {
+        return Stream.concat(
+                Stream.of(SNAttributes.RESOURCE_ATTRIBUTE_ID),
+                columns.stream().filter(column -> !SNAttributes.RESOURCE_ATTRIBUTE_ID.equals(column)))
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    private static boolean[] references(final String[] names, final List<String> referenceColumns) {
+        boolean[] references = new boolean[names.length];
+        for (int i = 0; i < names.length; i++) {
+            references[i] = referenceColumns.contains(names[i]);
+        }
+        return references;
+    }
+
+    @Override
+    public ObjectReader reader() {
+        return reader;
+    }
+
+    @Override
+    public String get(final BaseEntity resource, final int index) {
+        return ((TableRecord) resource).values[index];
+    }
+
+    @Override
+    public void set(final BaseEntity resource, final int index, final Object value, final String baseAddress) {
+        ((TableRecord) resource).values[index] = value == null ? null : value.toString();
+    }
+
+    @Override
+    public void setReference(final BaseEntity resource, final int index, final String value, final String link) {
+        ((TableRecord) resource).values[index] = value;
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow.dto;
+
+import java.util.Set;
+import org.identityconnectors.framework.common.objects.Attribute;
+
+/**
+ * Record of a table known at runtime: values are held by column index of its {@link TableCodec}, references as
+ * sys_id of the referenced record.
+ */
+public class TableRecord implements BaseEntity {
+
+    private final TableCodec codec;
+
+    final String[] values;
+
+    public TableRecord(final TableCodec codec) {
+        this.codec = codec;
+        this.values = new String[codec.size()];
+    }
+
+    public TableCodec getCodec() {
+        return codec;
+    }
+
+    @Override
+    public String getSysId() {
+        return values[TableCodec.SYS_ID_INDEX];
+    }
+
+    @Override
+    public void setSysId(final String sysId) {
+        values[TableCodec.SYS_ID_INDEX] = sysId;
+    }
+
+    @Override
+    public Set<Attribute> toAttributes() {
+        return codec.toAttributes(this);
+    }
+
+    @Override
+    public void fromAttributes(final Set<Attribute> attributes, final String baseAddress) {
+        codec.fromAttributes(this, attributes, baseAddress);
+    }
+
+    @Override
+    public String toString() {
+        return codec.toString(this);
+    }
+}
@@ -0,0 +1,676 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import java.util.Set;
+import net.tirasa.connid.bundles.servicenow.utils.UserResourceDeserializer;
+import org.identityconnectors.framework.common.objects.Attribute;
+
+/**
+ * Record of the sys_user table.
+ */
+@JsonDeserialize(using = UserResourceDeserializer.class)
+public class UserResource implements BaseEntity {
+
+    @JsonProperty("sys_id")
+    private String sysId;
+
+    @JsonProperty("sys_class_name")
+    private String sysClassName;
+
+    @JsonProperty("sys_created_by")
+    private String sysCreatedBy;
+
+    @JsonProperty("sys_created_on")
+    private String sysCreatedOn;
+
+    @JsonProperty("sys_updated_by")
+    private String sysUpdatedBy;
+
+    @JsonProperty("sys_updated_on")
+    private String sysUpdatedOn;
+
+    @JsonProperty("sys_mod_count")
+    private String sysModCount;
+
+    @JsonProperty("sys_domain")
+    private SNComplex sysDomain;
+
+    @JsonProperty("sys_domain_path")
+    private String sysDomainPath;
+
+    @JsonProperty("sys_tags")
+    private String sysTags;
+
+    @JsonProperty("active")
+    private String active;
+
+    @JsonProperty("name")
+    private String name;
+
+    @JsonProperty("user_name")
+    private String userName;
+
+    @JsonProperty("first_name")
+    private String firstName;
+
+    @JsonProperty("middle_name")
+    private String middleName;
+
+    @JsonProperty("last_name")
+    private String lastName;
+
+    @JsonProperty("email")
+    private String email;
+
+    @JsonProperty("phone")
+    private String phone;
+
+    @JsonProperty("mobile_phone")
+    private String mobilePhone;
+
+    @JsonProperty("home_phone")
+    private String homePhone;
+
+    @JsonProperty("title")
+    private String title;
+
+    @JsonProperty("department")
+    private SNComplex department;
+
+    @JsonProperty("manager")
+    private SNComplex manager;
+
+    @JsonProperty("company")
+    private SNComplex company;
+
+    @JsonProperty("location")
+    private SNComplex location;
+
+    @JsonProperty("cost_center")
+    private SNComplex costCenter;
+
+    @JsonProperty("building")
+    private String building;
+
+    @JsonProperty("street")
+    private String street;
+
+    @JsonProperty("city")
+    private String city;
+
+    @JsonProperty("state")
+    private String state;
+
+    @JsonProperty("zip")
+    private String zip;
+
+    @JsonProperty("country")
+    private String country;
+
+    @JsonProperty("employee_number")
+    private String employeeNumber;
+
+    @JsonProperty("gender")
+    private String gender;
+
+    @JsonProperty("introduction")
+    private String introduction;
+
+    @JsonProperty("photo")
+    private String photo;
+
+    @JsonProperty("roles")
+    private String roles;
+
+    @JsonProperty("source")
+    private String source;
+
+    @JsonProperty("ldap_server")
+    private SNComplex ldapServer;
+
+    @JsonProperty("user_password")
+    private String userPassword;
+
+    @JsonProperty("locked_out")
+    private String lockedOut;
+
+    @JsonProperty("password_needs_reset")
+    private String passwordNeedsReset;
+
+    @JsonProperty("failed_attempts")
+    private String failedAttempts;
+
+    @JsonProperty("last_login")
+    private String lastLogin;
+
+    @JsonProperty("last_login_time")
+    private String lastLoginTime;
+
+    @JsonProperty("web_service_access_only")
+    private String webServiceAccessOnly;
+
+    @JsonProperty("internal_integration_user")
+    private String internalIntegrationUser;
+
+    @JsonProperty("enable_multifactor_authn")
+    private String enableMultifactorAuthn;
+
+    @JsonProperty("vip")
+    private String vip;
+
+    @JsonProperty("notification")
+    private String notification;
+
+    @JsonProperty("calendar_integration")
+    private String calendarIntegration;
+
+    @JsonProperty("preferred_language")
+    private String preferredLanguage;
+
+    @JsonProperty("time_zone")
+    private String timeZone;
+
+    @JsonProperty("date_format")
+    private String dateFormat;
+
+    @JsonProperty("time_format")
+    private String timeFormat;
+
+    @JsonProperty("schedule")
+    private SNComplex schedule;
+
+    @JsonProperty("default_perspective")
+    private SNComplex defaultPerspective;
+
+    @Override
+    public String getSysId() {
+        return sysId;
+    }
+
+    @Override
+    public void setSysId(final String sysId) {
+        this.sysId = sysId;
+    }
+
+    public String getSysClassName() {
+        return sysClassName;
+    }
+
+    public void setSysClassName(final String sysClassName) {
+        this.sysClassName = sysClassName;
+    }
+
+    public String getSysCreatedBy() {
+        return sysCreatedBy;
+    }
+
+    public void setSysCreatedBy(final String sysCreatedBy) {
+        this.sysCreatedBy = sysCreatedBy;
+    }
+
+    public String getSysCreatedOn() {
+        return sysCreatedOn;
+    }
+
+    public void setSysCreatedOn(final String sysCreatedOn) {
+        this.sysCreatedOn = sysCreatedOn;
+    }
+
+    public String getSysUpdatedBy() {
+        return sysUpdatedBy;
+    }
+
+    public void setSysUpdatedBy(final String sysUpdatedBy) {
+        this.sysUpdatedBy = sysUpdatedBy;
+    }
+
+    public String getSysUpdatedOn() {
+        return sysUpdatedOn;
+    }
+
+    public void setSysUpdatedOn(final String sysUpdatedOn) {
+        this.sysUpdatedOn = sysUpdatedOn;
+    }
+
+    public String getSysModCount() {
+        return sysModCount;
+    }
+
+    public void setSysModCount(final String sysModCount) {
+        this.sysModCount = sysModCount;
+    }
+
+    public SNComplex getSysDomain() {
+        return sysDomain;
+    }
+
+    public void setSysDomain(final SNComplex sysDomain) {
+        this.sysDomain = sysDomain;
+    }
+
+    public String getSysDomainPath() {
+        return sysDomainPath;
+    }
+
+    public void setSysDomainPath(final String sysDomainPath) {
+        this.sysDomainPath = sysDomainPath;
+    }
+
+    public String getSysTags() {
+        return sysTags;
+    }
+
+    public void setSysTags(final String sysTags) {
+        this.sysTags = sysTags;
+    }
+
+    public String getActive() {
+        return active;
+    }
+
+    public void setActive(final String active) {
+        this.active = active;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public void setUserName(final String userName) {
+        this.userName = userName;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(final String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getMiddleName() {
+        return middleName;
+    }
+
+    public void setMiddleName(final String middleName) {
+        this.middleName = middleName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(final String lastName) {
+        this.lastName = lastName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(final String email) {
+        this.email = email;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public void setPhone(final String phone) {
+        this.phone = phone;
+    }
+
+    public String getMobilePhone() {
+        return mobilePhone;
+    }
+
+    public void setMobilePhone(final String mobilePhone) {
+        this.mobilePhone = mobilePhone;
+    }
+
+    public String getHomePhone() {
+        return homePhone;
+    }
+
+    public void setHomePhone(final String homePhone) {
+        this.homePhone = homePhone;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(final String title) {
+        this.title = title;
+    }
+
+    public SNComplex getDepartment() {
+        return department;
+    }
+
+    public void setDepartment(final SNComplex department) {
+        this.department = department;
+    }
+
+    public SNComplex getManager() {
+        return manager;
+    }
+
+    public void setManager(final SNComplex manager) {
+        this.manager = manager;
+    }
+
+    public SNComplex getCompany() {
+        return company;
+    }
+
+    public void setCompany(final SNComplex company) {
+        this.company = company;
+    }
+
+    public SNComplex getLocation() {
+        return location;
+    }
+
+    public void setLocation(final SNComplex location) {
+        this.location = location;
+    }
+
+    public SNComplex getCostCenter() {
+        return costCenter;
+    }
+
+    public void setCostCenter(final SNComplex costCenter) {
+        this.costCenter = costCenter;
+    }
+
+    public String getBuilding() {
+        return building;
+    }
+
+    public void setBuilding(final String building) {
+        this.building = building;
+    }
+
+    public String getStreet() {
+        return street;
+    }
+
+    public void setStreet(final String street) {
+        this.street = street;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public void setCity(final String city) {
+        this.city = city;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(final String state) {
+        this.state = state;
+    }
+
+    public String getZip() {
+        return zip;
+    }
+
+    public void setZip(final String zip) {
+        this.zip = zip;
+    }
+
+    public String getCountry() {
+        return country;
+    }
+
+    public void setCountry(final String country) {
+        this.country = country;
+    }
+
+    public String getEmployeeNumber() {
+        return employeeNumber;
+    }
+
+    public void setEmployeeNumber(final String employeeNumber) {
+        this.employeeNumber = employeeNumber;
+    }
+
+    public String getGender() {
+        return gender;
+    }
+
+    public void setGender(final String gender) {
+        this.gender = gender;
+    }
+
+    public String getIntroduction() {
+        return introduction;
+    }
+
+    public void setIntroduction(final String introduction) {
+        this.introduction = introduction;
+    }
+
+    public String getPhoto() {
+        return photo;
+    }
+
+    public void setPhoto(final String photo) {
+        this.photo = photo;
+    }
+
+    public String getRoles() {
+        return roles;
+    }
+
+    public void setRoles(final String roles) {
+        this.roles = roles;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(final String source) {
+        this.source = source;
+    }
+
+    public SNComplex getLdapServer() {
+        return ldapServer;
+    }
+
+    public void setLdapServer(final SNComplex ldapServer) {
+        this.ldapServer = ldapServer;
+    }
+
+    public String getUserPassword() {
+        return userPassword;
+    }
+
+    public void setUserPassword(final String userPassword) {
+        this.userPassword = userPassword;
+    }
+
+    public String getLockedOut() {
+        return lockedOut;
+    }
+
+    public void setLockedOut(final String lockedOut) {
+        this.lockedOut = lockedOut;
+    }
+
+    public String getPasswordNeedsReset() {
+        return passwordNeedsReset;
+    }
+
+    public void setPasswordNeedsReset(final String passwordNeedsReset) {
+        this.passwordNeedsReset = passwordNeedsReset;
+    }
+
+    public String getFailedAttempts() {
+        return failedAttempts;
+    }
+
+    public void setFailedAttempts(final String failedAttempts) {
+        this.failedAttempts = failedAttempts;
+    }
+
+    public String getLastLogin() {
+        return lastLogin;
+    }
+
+    public void setLastLogin(final String lastLogin) {
+        this.lastLogin = lastLogin;
+    }
+
+    public String getLastLoginTime() {
+        return lastLoginTime;
+    }
+
+    public void setLastLoginTime(final String lastLoginTime) {
+        this.lastLoginTime = lastLoginTime;
+    }
+
+    public String getWebServiceAccessOnly() {
+        return webServiceAccessOnly;
+    }
+
+    public void setWebServiceAccessOnly(final String webServiceAccessOnly) {
+        this.webServiceAccessOnly = webServiceAccessOnly;
+    }
+
+    public String getInternalIntegrationUser() {
+        return internalIntegrationUser;
+    }
+
+    public void setInternalIntegrationUser(final String internalIntegrationUser) {
+        this.internalIntegrationUser = internalIntegrationUser;
+    }
+
+    public String getEnableMultifactorAuthn() {
+        return enableMultifactorAuthn;
+    }
+
+    public void setEnableMultifactorAuthn(final String enableMultifactorAuthn) {
+        this.enableMultifactorAuthn = enableMultifactorAuthn;
+    }
+
+    public String getVip() {
+        return vip;
+    }
+
+    public void setVip(final String vip) {
+        this.vip = vip;
+    }
+
+    public String getNotification() {
+        return notification;
+    }
+
+    public void setNotification(final String notification) {
+        this.notification = notification;
+    }
+
+    public String getCalendarIntegration() {
+        return calendarIntegration;
+    }
+
+    public void setCalendarIntegration(final String calendarIntegration) {
+        this.calendarIntegration = calendarIntegration;
+    }
+
+    public String getPreferredLanguage() {
+        return preferredLanguage;
+    }
+
+    public void setPreferredLanguage(final String preferredLanguage) {
+        this.preferredLanguage = preferredLanguage;
+    }
+
+    public String getTimeZone() {
+        return timeZone;
+    }
+
+    public void setTimeZone(final String timeZone) {
+        this.timeZone = timeZone;
+    }
+
+    public String getDateFormat() {
+        return dateFormat;
+    }
+
+    public void setDateFormat(final String dateFormat) {
+        this.dateFormat = dateFormat;
+    }
+
+    public String getTimeFormat() {
+        return timeFormat;
+    }
+
+    public void setTimeFormat(final String timeFormat) {
+        this.timeFormat = timeFormat;
+    }
+
+    public SNComplex getSchedule() {
+        return schedule;
+    }
+
+    public void setSchedule(final SNComplex schedule) {
+        this.schedule = schedule;
+    }
+
+    public SNComplex getDefaultPerspective() {
+        return defaultPerspective;
+    }
+
+    public void setDefaultPerspective(final SNComplex defaultPerspective) {
+        this.defaultPerspective = defaultPerspective;
+    }
+
+    @JsonIgnore
+    @Override
+    public Set<Attribute> toAttributes() {
+        return ResourceCodec.USER.toAttributes(this);
+    }
+
+    @JsonIgnore
+    @Override
+    public void fromAttributes(final Set<Attribute> attributes, final String baseAddress) {
+        ResourceCodec.USER.fromAttributes(this, attributes, baseAddress);
+    }
+
+    @Override
+    public String toString() {
+        return ResourceCodec.USER.toString(this);
+    }
+}
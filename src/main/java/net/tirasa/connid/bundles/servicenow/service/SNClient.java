@@ -16,26 +16,149 @@
 package net.tirasa.connid.bundles.servicenow.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import javax.ws.rs.HttpMethod;
 import javax.ws.rs.core.Response;
 import net.tirasa.connid.bundles.servicenow.SNConnectorConfiguration;
+import net.tirasa.connid.bundles.servicenow.dto.BaseEntity;
+import net.tirasa.connid.bundles.servicenow.dto.BatchOperation;
+import net.tirasa.connid.bundles.servicenow.dto.BatchOperationResult;
 import net.tirasa.connid.bundles.servicenow.dto.BatchRequest;
+import net.tirasa.connid.bundles.servicenow.dto.BatchResponse;
+import net.tirasa.connid.bundles.servicenow.dto.DeletedResource;
 import net.tirasa.connid.bundles.servicenow.dto.MembershipResource;
 import net.tirasa.connid.bundles.servicenow.dto.PagedResults;
 import net.tirasa.connid.bundles.servicenow.dto.Resource;
+import net.tirasa.connid.bundles.servicenow.dto.ResourceCodec;
+import net.tirasa.connid.bundles.servicenow.dto.SyncWatermark;
+import net.tirasa.connid.bundles.servicenow.dto.TableCodec;
+import net.tirasa.connid.bundles.servicenow.utils.ExpiringCache;
+import net.tirasa.connid.bundles.servicenow.utils.SNAttributes;
 import net.tirasa.connid.bundles.servicenow.utils.SNUtils;
 import org.apache.cxf.jaxrs.client.WebClient;
 import org.identityconnectors.common.StringUtil;
 import org.identityconnectors.common.logging.Log;
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
 
 public class SNClient extends SNService {
 
     private static final Log LOG = Log.getLog(SNClient.class);
 
+    private static final String ORDER_BY = "ORDERBY";
+
+    private static final String ORDER_BY_DESC = "ORDERBYDESC";
+
+    private static final Set<String> CHANGE_FIELDS = Set.of(
+            SNAttributes.RESOURCE_ATTRIBUTE_ID, SNAttributes.RESOURCE_ATTRIBUTE_UPDATED_ON);
+
+    private static final Pattern SYS_ID_PATTERN = Pattern.compile("\\w+");
+
+    private static final String MEMBERSHIP_ATTRIBUTE_USER = "user";
+
+    private static final String MEMBERSHIP_ATTRIBUTE_GROUP = "group";
+
+    private static final Set<String> MEMBERSHIP_FIELDS = Set.of(
+            SNAttributes.RESOURCE_ATTRIBUTE_ID, MEMBERSHIP_ATTRIBUTE_USER, MEMBERSHIP_ATTRIBUTE_GROUP);
+
+    private static final int MEMBERSHIP_QUERY_CHUNK_SIZE = 100;
+
+    private static final long BATCH_RETRY_BACKOFF = 500L;
+
+    private static final int SERVER_ERROR = 500;
+
+    private static final ObjectReader MEMBERSHIP_READER = SNUtils.MAPPER.readerFor(MembershipResource.class);
+
+    private static final ObjectReader JSON_READER = SNUtils.MAPPER.readerFor(JsonNode.class);
+
+    private static final String TABLE_OBJECT = "sys_db_object";
+
+    private static final String TABLE_OBJECT_SUPER_CLASS = "super_class.name";
+
+    private static final Set<String> TABLE_OBJECT_FIELDS = Set.of(TABLE_OBJECT_SUPER_CLASS);
+
+    private static final String TABLE_DICTIONARY = "sys_dictionary";
+
+    private static final String DICTIONARY_ELEMENT = "element";
+
+    private static final String DICTIONARY_INTERNAL_TYPE = "internal_type";
+
+    private static final Set<String> TABLE_DICTIONARY_FIELDS = Set.of(DICTIONARY_ELEMENT, DICTIONARY_INTERNAL_TYPE);
+
+    private static final String REFERENCE_TYPE = "reference";
+
+    private static final ObjectReader DELETED_READER = SNUtils.MAPPER.readerFor(DeletedResource.class);
+
+    private static final String DELETED_TABLE = "tablename";
+
+    private static final Set<String> DELETED_FIELDS = Set.of(DELETED_TABLE, "documentkey", "payload");
+
+    private static final Map<String, String> MOD_COUNT_PARAMS =
+            Map.of("sysparm_fields", SNAttributes.RESOURCE_ATTRIBUTE_MOD_COUNT);
+
+    private static final String TABLE_API_PATH = "/api/now/table/";
+
+    private static final List<Object> END_OF_SCAN = new ArrayList<>(0);
+
+    private static final long PREFETCH_POLL_MILLIS = 500L;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private static final long WORKER_KEEP_ALIVE_SECONDS = 60L;
+
+    private final ExecutorService executor;
+
+    private final Map<String, TableCodec> tableCodecs = new ConcurrentHashMap<>();
+
+    private final ExpiringCache<String, CachedResource> resourceCache;
+
+    private final ExpiringCache<String, BaseEntity> writeCache;
+
     public SNClient(final SNConnectorConfiguration config) {
         super(config);
+
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "servicenow-client-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // no more threads than connections to use: further tasks wait in queue, as none depends on queued ones
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                config.getMaxConnectionsPerRoute(), config.getMaxConnectionsPerRoute(),
+                WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+        this.resourceCache = new ExpiringCache<>(config.getResourceCacheSize(), config.getResourceCacheTtl());
+        this.writeCache = new ExpiringCache<>(config.getWriteCacheSize(), config.getWriteCacheTtl());
     }
 
     /**
@@ -96,6 +219,104 @@ public class SNClient extends SNService {
         return doGetResources(getTableWebClient(type, params), MembershipResource.class);
     }
 
+    /**
+     * Resolves the groups of several users at once, querying memberships for chunks of users.
+     *
+     * @param userIds sys_ids of users
+     * @return sys_ids of the groups of each user, users without groups are not included
+     */
+    public Map<String, List<String>> getUserGroups(final Collection<String> userIds) {
+        Map<String, List<String>> groups = new HashMap<>();
+
+        List<String> ids = new ArrayList<>(userIds);
+        for (int i = 0; i < ids.size(); i += MEMBERSHIP_QUERY_CHUNK_SIZE) {
+            List<String> chunk = ids.subList(i, Math.min(i + MEMBERSHIP_QUERY_CHUNK_SIZE, ids.size()));
+            String query = MEMBERSHIP_ATTRIBUTE_USER + "IN" + String.join(",", chunk);
+            sequentialScan(ResourceTable.sys_user_grmember.name(), MEMBERSHIP_READER, query, MEMBERSHIP_FIELDS,
+                    (MembershipResource membership) -> {
+                        if (membership.getUser() != null && membership.getGroup() != null) {
+                            groups.computeIfAbsent(membership.getUser().getValue(), k -> new ArrayList<>())
+                                    .add(membership.getGroup().getValue());
+                        }
+                        return true;
+                    });
+        }
+
+        return groups;
+    }
+
+    /**
+     * Reads the current memberships of a user.
+     *
+     * @param userId sys_id of user
+     * @return sys_id of membership, by sys_id of group
+     */
+    public Map<String, String> getUserMemberships(final String userId) {
+        Map<String, String> memberships = new HashMap<>();
+        sequentialScan(ResourceTable.sys_user_grmember.name(), MEMBERSHIP_READER,
+                MEMBERSHIP_ATTRIBUTE_USER + "=" + userId, MEMBERSHIP_FIELDS, (MembershipResource membership) -> {
+                    if (membership.getGroup() != null) {
+                        memberships.put(membership.getGroup().getValue(), membership.getSysId());
+                    }
+                    return true;
+                });
+        return memberships;
+    }
+
+    /**
+     * Returns the codec of the given table, discovering its columns - including the inherited ones - from
+     * sys_dictionary the first time it is requested.
+     *
+     * @param table table name
+     * @return codec of the given table
+     */
+    public TableCodec getTableCodec(final String table) {
+        if (table == null || !SYS_ID_PATTERN.matcher(table).matches()) {
+            SNUtils.handleGeneralError("Invalid table name: " + table);
+        }
+        return tableCodecs.computeIfAbsent(table, this::discoverTableCodec);
+    }
+
+    private TableCodec discoverTableCodec(final String table) {
+        // 1. walk up the table hierarchy, as columns are defined in sys_dictionary by the table declaring them
+        List<String> tables = new ArrayList<>();
+        for (String current = table; StringUtil.isNotBlank(current) && !tables.contains(current);) {
+            tables.add(current);
+
+            AtomicReference<String> superClass = new AtomicReference<>();
+            stream(TABLE_OBJECT, JSON_READER, "name=" + current, TABLE_OBJECT_FIELDS, 0, 1, (JsonNode node) -> {
+                superClass.set(node.path(TABLE_OBJECT_SUPER_CLASS).asText(null));
+                return false;
+            });
+            current = superClass.get();
+        }
+
+        // 2. read the columns of all tables in the hierarchy
+        Set<String> columns = new LinkedHashSet<>();
+        Set<String> referenceColumns = new HashSet<>();
+        stream(TABLE_DICTIONARY, JSON_READER, "nameIN" + String.join(",", tables) + "^elementISNOTEMPTY",
+                TABLE_DICTIONARY_FIELDS, null, null, (JsonNode node) -> {
+                    String element = node.path(DICTIONARY_ELEMENT).asText(null);
+                    JsonNode internalType = node.path(DICTIONARY_INTERNAL_TYPE);
+                    if (internalType.isObject()) {
+                        internalType = internalType.path("value");
+                    }
+                    if (StringUtil.isNotBlank(element)) {
+                        columns.add(element);
+                        if (REFERENCE_TYPE.equals(internalType.asText(null))) {
+                            referenceColumns.add(element);
+                        }
+                    }
+                    return true;
+                });
+        if (columns.isEmpty()) {
+            SNUtils.handleGeneralError("No columns found for table " + table);
+        }
+
+        LOG.ok("Discovered {0} columns for table {1}", columns.size(), table);
+        return new TableCodec(table, new ArrayList<>(columns), new ArrayList<>(referenceColumns));
+    }
+
     /**
      *
      * @param type
@@ -126,6 +347,591 @@ public class SNClient extends SNService {
         return doGetResources(getTableWebClient(type, params), Resource.class);
     }
 
+    /**
+     * Streams Resources straight from the response body to the given consumer.
+     *
+     * @param <R> Resource type
+     * @param table
+     * @param reader reads Resources of the given table
+     * @param filterQuery to filter results, can be null
+     * @param fields to be returned, can be null to get all fields
+     * @param startIndex can be null
+     * @param count can be null
+     * @param consumer returns false to stop reading
+     * @return number of Resources read
+     */
+    private <R> int stream(
+            final String table,
+            final ObjectReader reader,
+            final String filterQuery,
+            final Set<String> fields,
+            final Integer startIndex,
+            final Integer count,
+            final Predicate<? super R> consumer) {
+
+        Map<String, String> params = new HashMap<>();
+        if (StringUtil.isNotBlank(filterQuery)) {
+            params.put("sysparm_query", filterQuery);
+        }
+        if (fields != null) {
+            params.put("sysparm_fields", String.join(",", fields));
+        }
+        if (startIndex != null) {
+            params.put("sysparm_offset", String.valueOf(startIndex));
+        }
+        if (count != null) {
+            params.put("sysparm_limit", String.valueOf(count));
+        }
+        return doStream(getTableWebClient(table, params), reader, consumer);
+    }
+
+    /**
+     * Streams Resources as {@link #stream(String, ObjectReader, String, Set, Integer, Integer, Predicate)} does; when
+     * a page preparer is given, the whole page is read and its response closed first, then the preparer receives the
+     * sys_ids of the page - and can send requests of its own - before Resources are handed to the consumer.
+     */
+    private <R extends BaseEntity> int stream(
+            final String table,
+            final ObjectReader reader,
+            final String filterQuery,
+            final Set<String> fields,
+            final Integer startIndex,
+            final Integer count,
+            final Consumer<? super List<String>> pagePreparer,
+            final Predicate<? super R> consumer) {
+
+        if (pagePreparer == null) {
+            return stream(table, reader, filterQuery, fields, startIndex, count, consumer);
+        }
+
+        List<R> page = new ArrayList<>();
+        int read = stream(table, reader, filterQuery, fields, startIndex, count, (R resource) -> page.add(resource));
+        if (!page.isEmpty()) {
+            List<String> keys = new ArrayList<>(page.size());
+            page.forEach(resource -> keys.add(resource.getSysId()));
+            pagePreparer.accept(keys);
+        }
+        boolean proceed = true;
+        for (int i = 0; proceed && i < page.size(); i++) {
+            proceed = consumer.test(page.get(i));
+        }
+        return read;
+    }
+
+    /**
+     * Streams Resources ordered by sys_id, starting right after the given key.
+     *
+     * @param <R> Resource type
+     * @param table
+     * @param reader reads Resources of the given table
+     * @param filterQuery to filter results, can be null
+     * @param fields to be returned, can be null to get all fields
+     * @param afterSysId last sys_id already read, can be null to start from the beginning
+     * @param count can be null
+     * @param consumer returns false to stop reading
+     * @return number of Resources read
+     */
+    private <R extends BaseEntity> int streamAfter(
+            final String table,
+            final ObjectReader reader,
+            final String filterQuery,
+            final Set<String> fields,
+            final String afterSysId,
+            final Integer count,
+            final Predicate<? super R> consumer) {
+
+        return streamAfter(table, reader, filterQuery, fields, afterSysId, count, null, consumer);
+    }
+
+    private <R extends BaseEntity> int streamAfter(
+            final String table,
+            final ObjectReader reader,
+            final String filterQuery,
+            final Set<String> fields,
+            final String afterSysId,
+            final Integer count,
+            final Consumer<? super List<String>> pagePreparer,
+            final Predicate<? super R> consumer) {
+
+        String query = filterQuery;
+        if (StringUtil.isNotBlank(afterSysId)) {
+            if (!SYS_ID_PATTERN.matcher(afterSysId).matches()) {
+                SNUtils.handleGeneralError("Invalid key: " + afterSysId);
+            }
+            query = SNUtils.andQuery(query, SNAttributes.RESOURCE_ATTRIBUTE_ID + ">" + afterSysId);
+        }
+        query = SNUtils.andQuery(query, ORDER_BY + SNAttributes.RESOURCE_ATTRIBUTE_ID);
+
+        return stream(table, reader, query, fields, null, count, pagePreparer, consumer);
+    }
+
+    /**
+     * Reads all Resources matching the given query as a sequence of server pages, ordered by sys_id; when read-ahead
+     * is configured, next pages are fetched in background while the current one is being consumed.
+     * When scan parallelism is configured, disjoint sys_id ranges are read concurrently: the converter and the page
+     * preparer may then be invoked from several threads, while invocations of the consumer are always serialized.
+     *
+     * @param <R> Resource type
+     * @param <T> converted type
+     * @param table
+     * @param reader reads Resources of the given table
+     * @param filterQuery to filter results, can be null
+     * @param fields to be returned, can be null to get all fields
+     * @param converter converts each Resource read
+     * @param pagePreparer receives the sys_ids of each page once read, before its Resources are consumed; can be null
+     * @param consumer returns false to stop reading
+     */
+    private <R extends BaseEntity, T> void scan(
+            final String table,
+            final ObjectReader reader,
+            final String filterQuery,
+            final Set<String> fields,
+            final Function<? super R, ? extends T> converter,
+            final Consumer<? super List<String>> pagePreparer,
+            final Predicate<? super T> consumer) {
+
+        if (config.getScanParallelism() > 1) {
+            parallelScan(table, reader, filterQuery, fields, converter, pagePreparer, consumer);
+        } else if (config.getReadAheadPages() > 0) {
+            prefetchingScan(table, reader, filterQuery, fields, converter, pagePreparer, consumer);
+        } else {
+            sequentialScan(table, reader, filterQuery, fields, pagePreparer,
+                    (R resource) -> consumer.test(converter.apply(resource)));
+        }
+    }
+
+    private <R extends BaseEntity> void sequentialScan(
+            final String table,
+            final ObjectReader reader,
+            final String filterQuery,
+            final Set<String> fields,
+            final Predicate<? super R> consumer) {
+
+        sequentialScan(table, reader, filterQuery, fields, null, consumer);
+    }
+
+    private <R extends BaseEntity> void sequentialScan(
+            final String table,
+            final ObjectReader reader,
+            final String filterQuery,
+            final Set<String> fields,
+            final Consumer<? super List<String>> pagePreparer,
+            final Predicate<? super R> consumer) {
+
+        int chunkSize = config.getScanChunkSize();
+        AtomicReference<String> lastKey = new AtomicReference<>();
+        AtomicBoolean proceed = new AtomicBoolean(true);
+
+        int read;
+        do {
+            read = streamAfter(table, reader, filterQuery, fields, lastKey.get(), chunkSize, pagePreparer,
+                    (R resource) -> {
+                        lastKey.set(resource.getSysId());
+                        proceed.set(consumer.test(resource));
+                        return proceed.get();
+                    });
+        } while (proceed.get() && read >= chunkSize);
+    }
+
+    private <R extends BaseEntity, T> void prefetchingScan(
+            final String table,
+            final ObjectReader reader,
+            final String filterQuery,
+            final Set<String> fields,
+            final Function<? super R, ? extends T> converter,
+            final Consumer<? super List<String>> pagePreparer,
+            final Predicate<? super T> consumer) {
+
+        int chunkSize = config.getScanChunkSize();
+        BlockingQueue<List<?>> pages = new ArrayBlockingQueue<>(config.getReadAheadPages());
+        AtomicBoolean proceed = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        // pages are converted while being read, so that they are queued in their (possibly) more compact form
+        Future<?> producer = executor.submit(() -> {
+            try {
+                AtomicReference<String> lastKey = new AtomicReference<>();
+                int read;
+                do {
+                    List<T> page = new ArrayList<>(chunkSize);
+                    List<String> keys = new ArrayList<>(chunkSize);
+                    read = streamAfter(
+                            table, reader, filterQuery, fields, lastKey.get(), chunkSize, (R resource) -> {
+                                lastKey.set(resource.getSysId());
+                                keys.add(resource.getSysId());
+                                return page.add(converter.apply(resource));
+                            });
+                    if (!page.isEmpty()) {
+                        if (pagePreparer != null) {
+                            pagePreparer.accept(keys);
+                        }
+                        pages.put(page);
+                    }
+                } while (proceed.get() && read >= chunkSize);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable e) {
+                failure.set(e);
+            } finally {
+                try {
+                    pages.put(END_OF_SCAN);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        boolean stopped = false;
+        try {
+            while (!stopped) {
+                List<?> page = pages.poll(PREFETCH_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (page == END_OF_SCAN || (page == null && producer.isDone() && pages.isEmpty())) {
+                    // the producer is done, even if it could not hand over the end marker
+                    break;
+                }
+                if (page != null) {
+                    @SuppressWarnings("unchecked")
+                    List<T> converted = (List<T>) page;
+                    for (int i = 0; i < converted.size() && !stopped; i++) {
+                        stopped = !consumer.test(converted.get(i));
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectorException("Interrupted while waiting for the next page", e);
+        } finally {
+            proceed.set(false);
+            producer.cancel(true);
+            pages.clear();
+        }
+
+        if (!stopped && failure.get() != null) {
+            if (failure.get() instanceof Error) {
+                throw (Error) failure.get();
+            }
+            throw ConnectorException.wrap(failure.get());
+        }
+    }
+
+    private <R extends BaseEntity, T> void parallelScan(
+            final String table,
+            final ObjectReader reader,
+            final String filterQuery,
+            final Set<String> fields,
+            final Function<? super R, ? extends T> converter,
+            final Consumer<? super List<String>> pagePreparer,
+            final Predicate<? super T> consumer) {
+
+        Queue<String> shards = new ConcurrentLinkedQueue<>(shardQueries(config.getScanParallelism()));
+        AtomicBoolean proceed = new AtomicBoolean(true);
+        Object lock = new Object();
+
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < config.getScanParallelism(); i++) {
+            workers.add(executor.submit(() -> {
+                String shard;
+                while (proceed.get() && (shard = shards.poll()) != null) {
+                    // pages are prepared by each worker on its own, out of the lock
+                    sequentialScan(table, reader, SNUtils.andQuery(filterQuery, shard), fields, pagePreparer,
+                            (R resource) -> {
+                                if (!proceed.get()) {
+                                    return false;
+                                }
+                                T converted = converter.apply(resource);
+                                synchronized (lock) {
+                                    if (proceed.get() && !consumer.test(converted)) {
+                                        proceed.set(false);
+                                    }
+                                    return proceed.get();
+                                }
+                            });
+                }
+            }));
+        }
+
+        try {
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectorException("Interrupted while scanning " + table, e);
+        } catch (ExecutionException e) {
+            throw ConnectorException.wrap(e.getCause());
+        } finally {
+            proceed.set(false);
+            workers.forEach(worker -> worker.cancel(true));
+        }
+    }
+
+    /**
+     * Splits the sys_id key space into contiguous ranges by hexadecimal prefix: the first and last ranges are open,
+     * hence every possible sys_id falls in exactly one range.
+     */
+    static List<String> shardQueries(final int parallelism) {
+        int prefixLength = parallelism <= 16 ? 1 : 2;
+        int shardCount = 1 << (4 * prefixLength);
+
+        List<String> queries = new ArrayList<>(shardCount);
+        String lower = null;
+        for (int i = 1; i <= shardCount; i++) {
+            String upper = i < shardCount
+                    ? String.format("%0" + prefixLength + "x", i)
+                    : null;
+
+            String query = lower == null ? null : SNAttributes.RESOURCE_ATTRIBUTE_ID + ">=" + lower;
+            if (upper != null) {
+                query = SNUtils.andQuery(query, SNAttributes.RESOURCE_ATTRIBUTE_ID + "<" + upper);
+            }
+            queries.add(query);
+
+            lower = upper;
+        }
+        return queries;
+    }
+
+    /**
+     * Streams records of the codec table straight from the response body to the given consumer.
+     *
+     * @param codec codec of the table to read
+     * @param filterQuery to filter results, can be null
+     * @param fields to be returned, can be null to get all fields
+     * @param startIndex can be null
+     * @param count can be null
+     * @param consumer returns false to stop reading
+     * @return number of records read
+     */
+    public int streamResources(
+            final ResourceCodec codec,
+            final String filterQuery,
+            final Set<String> fields,
+            final Integer startIndex,
+            final Integer count,
+            final Predicate<? super BaseEntity> consumer) {
+
+        return stream(codec.getTable(), codec.reader(), filterQuery, fields, startIndex, count, consumer);
+    }
+
+    /**
+     * Streams records of the codec table ordered by sys_id, starting right after the given key.
+     *
+     * @param codec codec of the table to read
+     * @param filterQuery to filter results, can be null
+     * @param fields to be returned, can be null to get all fields
+     * @param afterSysId last sys_id already read, can be null to start from the beginning
+     * @param count can be null
+     * @param consumer returns false to stop reading
+     * @return number of records read
+     */
+    public int streamResourcesAfter(
+            final ResourceCodec codec,
+            final String filterQuery,
+            final Set<String> fields,
+            final String afterSysId,
+            final Integer count,
+            final Predicate<? super BaseEntity> consumer) {
+
+        return streamAfter(codec.getTable(), codec.reader(), filterQuery, fields, afterSysId, count, consumer);
+    }
+
+    /**
+     * Reads all records of the codec table matching the given query.
+     *
+     * @param <T> converted type
+     * @param codec codec of the table to read
+     * @param filterQuery to filter results, can be null
+     * @param fields to be returned, can be null to get all fields
+     * @param converter converts each record read
+     * @param pagePreparer receives the sys_ids of each page once read, before its records are consumed; can be null
+     * @param consumer returns false to stop reading
+     * @see #scan(String, ObjectReader, String, Set, Function, Consumer, Predicate)
+     */
+    public <T> void scanResources(
+            final ResourceCodec codec,
+            final String filterQuery,
+            final Set<String> fields,
+            final Function<? super BaseEntity, ? extends T> converter,
+            final Consumer<? super List<String>> pagePreparer,
+            final Predicate<? super T> consumer) {
+
+        this.<BaseEntity, T>scan(
+                codec.getTable(), codec.reader(), filterQuery, fields, converter, pagePreparer, consumer);
+    }
+
+    /**
+     * Reads the records of the codec table changed since the given watermark.
+     *
+     * @param codec codec of the table to read
+     * @param fields to be returned, can be null to get all fields
+     * @param from watermark of the last change already read
+     * @param pagePreparer receives the sys_ids of each page once read, before its records are consumed; can be null
+     * @param consumer receives each record with its watermark, returns false to stop reading
+     * @return watermark of the last record read, or the given one if none was read
+     * @see #scanChanges(String, ObjectReader, Function, String, Set, SyncWatermark, Consumer, BiPredicate)
+     */
+    public SyncWatermark scanChanges(
+            final ResourceCodec codec,
+            final Set<String> fields,
+            final SyncWatermark from,
+            final Consumer<? super List<String>> pagePreparer,
+            final BiPredicate<? super BaseEntity, SyncWatermark> consumer) {
+
+        int updatedOn = codec.indexOf(SNAttributes.RESOURCE_ATTRIBUTE_UPDATED_ON);
+        return scanChanges(codec.getTable(), codec.reader(),
+                (BaseEntity resource) -> codec.get(resource, updatedOn), null, fields, from, pagePreparer, consumer);
+    }
+
+    /**
+     * Reads the user-group memberships changed since the given watermark.
+     *
+     * @param from watermark of the last change already read
+     * @param consumer receives each membership with its watermark, returns false to stop reading
+     * @return watermark of the last membership read, or the given one if none was read
+     */
+    public SyncWatermark scanMembershipChanges(
+            final SyncWatermark from,
+            final BiPredicate<? super MembershipResource, SyncWatermark> consumer) {
+
+        return scanChanges(ResourceTable.sys_user_grmember.name(), MEMBERSHIP_READER,
+                MembershipResource::getSysUpdatedOn, null, MEMBERSHIP_FIELDS, from, null, consumer);
+    }
+
+    /**
+     * @param codec codec of the table to read
+     * @return watermark of the latest change in the codec table
+     */
+    public SyncWatermark getLatestWatermark(final ResourceCodec codec) {
+        int updatedOn = codec.indexOf(SNAttributes.RESOURCE_ATTRIBUTE_UPDATED_ON);
+        return latestWatermark(codec.getTable(), codec.reader(),
+                (BaseEntity resource) -> codec.get(resource, updatedOn), null);
+    }
+
+    /**
+     * @return watermark of the latest change in user-group memberships
+     */
+    public SyncWatermark getLatestMembershipWatermark() {
+        return latestWatermark(ResourceTable.sys_user_grmember.name(), MEMBERSHIP_READER,
+                MembershipResource::getSysUpdatedOn, null);
+    }
+
+    /**
+     * Reads the deletions of records of the given tables tracked since the given watermark, from the configured
+     * deleted-records table.
+     *
+     * @param tables tables whose deletions are to be read
+     * @param from watermark of the last deletion already read
+     * @param consumer receives each deletion with its watermark, returns false to stop reading
+     * @return watermark of the last deletion read, or the given one if none was read
+     */
+    public SyncWatermark scanDeletions(
+            final Collection<String> tables,
+            final SyncWatermark from,
+            final BiPredicate<? super DeletedResource, SyncWatermark> consumer) {
+
+        return scanChanges(config.getDeletedRecordsTable(), DELETED_READER, DeletedResource::getSysUpdatedOn,
+                deletionsQuery(tables), DELETED_FIELDS, from, null, consumer);
+    }
+
+    /**
+     * @param tables tables whose deletions are to be read
+     * @return watermark of the latest deletion of records of the given tables
+     */
+    public SyncWatermark getLatestDeletionWatermark(final Collection<String> tables) {
+        return latestWatermark(config.getDeletedRecordsTable(), DELETED_READER, DeletedResource::getSysUpdatedOn,
+                deletionsQuery(tables));
+    }
+
+    private static String deletionsQuery(final Collection<String> tables) {
+        tables.forEach(table -> {
+            if (!SYS_ID_PATTERN.matcher(table).matches()) {
+                SNUtils.handleGeneralError("Invalid table name: " + table);
+            }
+        });
+        return DELETED_TABLE + "IN" + String.join(",", tables);
+    }
+
+    /**
+     * Reads records ordered by sys_updated_on, then sys_id, starting right after the given watermark; records
+     * updated in the same second as the watermark are read first, by sys_id, then the ones updated later, so that
+     * keyset pagination stays correct however many records share the same sys_updated_on.
+     */
+    private <R extends BaseEntity> SyncWatermark scanChanges(
+            final String table,
+            final ObjectReader reader,
+            final Function<? super R, String> updatedOn,
+            final String filterQuery,
+            final Set<String> fields,
+            final SyncWatermark from,
+            final Consumer<? super List<String>> pagePreparer,
+            final BiPredicate<? super R, SyncWatermark> consumer) {
+
+        Set<String> changeFields = null;
+        if (fields != null) {
+            changeFields = new HashSet<>(fields);
+            changeFields.addAll(CHANGE_FIELDS);
+        }
+
+        int chunkSize = config.getScanChunkSize();
+        AtomicReference<SyncWatermark> mark = new AtomicReference<>(from);
+        AtomicBoolean proceed = new AtomicBoolean(true);
+        Predicate<R> advance = resource -> {
+            String resourceUpdatedOn = updatedOn.apply(resource);
+            if (resourceUpdatedOn != null) {
+                mark.set(new SyncWatermark(resourceUpdatedOn, resource.getSysId()));
+            }
+            proceed.set(consumer.test(resource, mark.get()));
+            return proceed.get();
+        };
+
+        int read;
+        do {
+            // 1. records updated in the same second as the watermark, after its sys_id
+            if (!mark.get().isNone()) {
+                int tied;
+                do {
+                    String query = SNUtils.andQuery(filterQuery,
+                            SNAttributes.RESOURCE_ATTRIBUTE_UPDATED_ON + "=" + mark.get().getUpdatedOn()
+                            + SNUtils.QUERY_AND + SNAttributes.RESOURCE_ATTRIBUTE_ID + ">" + mark.get().getSysId()
+                            + SNUtils.QUERY_AND + ORDER_BY + SNAttributes.RESOURCE_ATTRIBUTE_ID);
+                    tied = stream(table, reader, query, changeFields, null, chunkSize, pagePreparer, advance);
+                } while (proceed.get() && tied >= chunkSize);
+            }
+            if (!proceed.get()) {
+                break;
+            }
+
+            // 2. records updated later
+            String query = mark.get().isNone()
+                    ? filterQuery
+                    : SNUtils.andQuery(filterQuery,
+                            SNAttributes.RESOURCE_ATTRIBUTE_UPDATED_ON + ">" + mark.get().getUpdatedOn());
+            query = SNUtils.andQuery(query, ORDER_BY + SNAttributes.RESOURCE_ATTRIBUTE_UPDATED_ON
+                    + SNUtils.QUERY_AND + ORDER_BY + SNAttributes.RESOURCE_ATTRIBUTE_ID);
+            read = stream(table, reader, query, changeFields, null, chunkSize, pagePreparer, advance);
+        } while (proceed.get() && read >= chunkSize);
+
+        return mark.get();
+    }
+
+    private <R extends BaseEntity> SyncWatermark latestWatermark(
+            final String table,
+            final ObjectReader reader,
+            final Function<? super R, String> updatedOn,
+            final String filterQuery) {
+
+        AtomicReference<SyncWatermark> latest = new AtomicReference<>(SyncWatermark.NONE);
+        stream(table, reader, SNUtils.andQuery(filterQuery, ORDER_BY_DESC + SNAttributes.RESOURCE_ATTRIBUTE_UPDATED_ON
+                + SNUtils.QUERY_AND + ORDER_BY_DESC + SNAttributes.RESOURCE_ATTRIBUTE_ID),
+                CHANGE_FIELDS, null, 1, (R resource) -> {
+                    if (updatedOn.apply(resource) != null) {
+                        latest.set(new SyncWatermark(updatedOn.apply(resource), resource.getSysId()));
+                    }
+                    return false;
+                });
+        return latest.get();
+    }
+
     /**
      *
      * @param type
@@ -133,14 +939,86 @@ public class SNClient extends SNService {
      * @return Resource with resource id
      */
     public Resource getResource(final ResourceTable type, final String id) {
-        Resource resource = null;
-        JsonNode node = doGet(getTableWebClient(type, null).path(id));
+        return readResource(type.name(), SNUtils.MAPPER.readerFor(Resource.class), id, null);
+    }
+
+    /**
+     *
+     * @param codec codec of the table to read
+     * @param id
+     * @param fields to be returned, can be null to get all fields
+     * @return record with resource id
+     */
+    public BaseEntity getResource(final ResourceCodec codec, final String id, final Set<String> fields) {
+        int modCount = codec.indexOf(SNAttributes.RESOURCE_ATTRIBUTE_MOD_COUNT);
+        String key = cacheKey(codec.getTable(), id);
+
+        // 0. just written by this connector
+        BaseEntity written = writeCache.get(key);
+        if (written != null) {
+            return written;
+        }
+
+        // 1. cached and covering the requested fields: up-to-date, or unchanged since cached
+        ExpiringCache.Entry<CachedResource> entry = resourceCache.getEntry(key);
+        if (entry != null && entry.getValue().covers(fields)) {
+            if (!resourceCache.isExpired(entry)) {
+                return entry.getValue().resource;
+            }
+            if (entry.getValue().modCount != null) {
+                JsonNode current;
+                try {
+                    current = doGet(getTableWebClient(codec.getTable(), MOD_COUNT_PARAMS).path(id));
+                } catch (NoSuchEntityException e) {
+                    resourceCache.invalidate(key);
+                    throw e;
+                }
+                if (current != null && entry.getValue().modCount.equals(
+                        current.path(SNAttributes.RESOURCE_ATTRIBUTE_MOD_COUNT).asText(null))) {
+
+                    resourceCache.renew(key, entry);
+                    return entry.getValue().resource;
+                }
+            }
+        }
+
+        // 2. read, including the fields already cached, so that the new entry covers both
+        Set<String> toRead = null;
+        if (fields != null && entry != null && entry.getValue().fields != null) {
+            toRead = new HashSet<>(fields);
+            toRead.addAll(entry.getValue().fields);
+        } else if (fields != null && entry == null) {
+            toRead = new HashSet<>(fields);
+        }
+        if (toRead != null && modCount != -1 && config.getResourceCacheSize() > 0) {
+            toRead.add(SNAttributes.RESOURCE_ATTRIBUTE_MOD_COUNT);
+        }
+
+        BaseEntity resource = readResource(codec.getTable(), codec.reader(), id, toRead);
+        resourceCache.put(key, new CachedResource(
+                resource, toRead, modCount == -1 ? null : codec.get(resource, modCount)));
+        return resource;
+    }
+
+    private <R extends BaseEntity> R readResource(
+            final String table,
+            final ObjectReader reader,
+            final String id,
+            final Set<String> fields) {
+
+        Map<String, String> params = new HashMap<>();
+        if (fields != null) {
+            params.put("sysparm_fields", String.join(",", fields));
+        }
+
+        R resource = null;
+        JsonNode node = doGet(getTableWebClient(table, params).path(id));
         if (node == null) {
             SNUtils.handleGeneralError("While retrieving Resource from service");
         }
 
         try {
-            resource = SNUtils.MAPPER.readValue(node.toString(), Resource.class);
+            resource = reader.readValue(node.toString());
         } catch (IOException ex) {
             LOG.error(ex, "While converting from JSON to Resource");
         }
@@ -159,7 +1037,10 @@ public class SNClient extends SNService {
      * @return Created Resource
      */
     public Resource createResource(final ResourceTable type, final Resource resource) {
-        doCreate(resource, getTableWebClient(type, null));
+        JsonNode created = doCreate(resource, getTableWebClient(type, null));
+        // sys_id is known only now, as assigned by Service Now
+        resourceCache.invalidate(cacheKey(type.name(), resource.getSysId()));
+        rememberWrite(type, created);
         return resource;
     }
 
@@ -174,11 +1055,15 @@ public class SNClient extends SNService {
             SNUtils.handleGeneralError("Missing required Resource id attribute for update");
         }
 
+        resourceCache.invalidate(cacheKey(type.name(), resource.getSysId()));
+        writeCache.invalidate(cacheKey(type.name(), resource.getSysId()));
+
         Resource updated = null;
         JsonNode node = doUpdate(resource, getTableWebClient(type, null).path(resource.getSysId()));
         if (node == null) {
             SNUtils.handleGeneralError("While running update on service");
         }
+        rememberWrite(type, node);
 
         try {
             updated = SNUtils.MAPPER.readValue(node.toString(), Resource.class);
@@ -199,6 +1084,8 @@ public class SNClient extends SNService {
      * @param id
      */
     public void deleteResource(final ResourceTable type, final String id) {
+        resourceCache.invalidate(cacheKey(type.name(), id));
+        writeCache.invalidate(cacheKey(type.name(), id));
         WebClient webClient = getTableWebClient(type, null).path(id);
         doDelete(id, webClient);
     }
@@ -212,7 +1099,147 @@ public class SNClient extends SNService {
         return SNClient.this.getResources(ResourceTable.sys_user, 0, 1, false) != null;
     }
 
+    /**
+     * Releases the threads, the pooled HTTP connections and the rate limiter held by this client.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        super.close();
+    }
+
+    /**
+     * Executes the operations of the given batch request, in no particular order.
+     *
+     * @param batchRequest batch request
+     * @see #executeBatch(BatchRequest, boolean)
+     */
     public void executeBatch(final BatchRequest batchRequest) {
+        executeBatch(batchRequest, false);
+    }
+
+    /**
+     * Executes the operations of the given batch request.
+     * Operations are sent in chunks of at most {@code batchChunkSize}; operations failed with a transient error or
+     * left unserviced are sent again, up to {@code batchRetries} times.
+     * Unordered chunks are sent several at once, ordered chunks one after the other, stopping at the first chunk
+     * with failed operations.
+     *
+     * @param batchRequest batch request
+     * @param ordered whether operations must be executed in the given order
+     */
+    public void executeBatch(final BatchRequest batchRequest, final boolean ordered) {
+        List<BatchOperation> operations = batchRequest.getRequests();
+        int chunkSize = config.getBatchChunkSize();
+
+        List<String> failures;
+        if (operations.size() <= chunkSize) {
+            failures = executeChunk(batchRequest.getBatchRequestId(), operations);
+        } else if (ordered) {
+            failures = new ArrayList<>();
+            for (int i = 0; failures.isEmpty() && i < operations.size(); i += chunkSize) {
+                failures.addAll(executeChunk(batchRequest.getBatchRequestId() + "-" + (i / chunkSize + 1),
+                        operations.subList(i, Math.min(i + chunkSize, operations.size()))));
+            }
+        } else {
+            Queue<List<BatchOperation>> chunks = new ConcurrentLinkedQueue<>();
+            for (int i = 0; i < operations.size(); i += chunkSize) {
+                chunks.add(operations.subList(i, Math.min(i + chunkSize, operations.size())));
+            }
+            AtomicInteger chunkCounter = new AtomicInteger();
+            Queue<String> chunkFailures = new ConcurrentLinkedQueue<>();
+
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < Math.min(chunks.size(), config.getMaxConnectionsPerRoute()); i++) {
+                workers.add(executor.submit(() -> {
+                    List<BatchOperation> chunk;
+                    while ((chunk = chunks.poll()) != null) {
+                        chunkFailures.addAll(executeChunk(
+                                batchRequest.getBatchRequestId() + "-" + chunkCounter.incrementAndGet(), chunk));
+                    }
+                }));
+            }
+
+            try {
+                for (Future<?> worker : workers) {
+                    worker.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConnectorException("Interrupted while executing batch request", e);
+            } catch (ExecutionException e) {
+                throw ConnectorException.wrap(e.getCause());
+            } finally {
+                workers.forEach(worker -> worker.cancel(true));
+            }
+            failures = new ArrayList<>(chunkFailures);
+        }
+
+        if (!failures.isEmpty()) {
+            SNUtils.handleGeneralError("While executing batch request " + batchRequest.getBatchRequestId()
+                    + " - failed operations: " + failures);
+        }
+    }
+
+    /**
+     * @return descriptions of the operations which could not be executed
+     */
+    private List<String> executeChunk(final String batchRequestId, final List<BatchOperation> operations) {
+        Map<String, BatchOperation> pending = new LinkedHashMap<>();
+        operations.forEach(operation -> pending.put(operation.getId(), operation));
+        List<String> failures = new ArrayList<>();
+
+        for (int attempt = 0; !pending.isEmpty(); attempt++) {
+            boolean lastAttempt = attempt >= config.getBatchRetries();
+            if (attempt > 0) {
+                LOG.ok("Retrying {0} operations of batch request {1}", pending.size(), batchRequestId);
+                try {
+                    Thread.sleep(BATCH_RETRY_BACKOFF * attempt);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ConnectorException("Interrupted while executing batch request", e);
+                }
+            }
+
+            BatchRequest chunk = new BatchRequest(attempt == 0 ? batchRequestId : batchRequestId + "-r" + attempt);
+            chunk.getRequests().addAll(pending.values());
+
+            BatchResponse response = postBatch(chunk);
+            if (response != null) {
+                for (BatchOperationResult result : response.getServicedRequests()) {
+                    BatchOperation operation = pending.get(result.getId());
+                    if (operation == null) {
+                        continue;
+                    }
+                    if (result.isSuccessful()) {
+                        pending.remove(result.getId());
+                        rememberBatchWrite(operation, result);
+                    } else if (lastAttempt || !result.isTransientFailure()) {
+                        pending.remove(result.getId());
+                        LOG.error("Batch operation {0} {1} failed: {2}",
+                                operation.getMethod(), operation.getUrl(), result.decodeBody());
+                        failures.add(operation.getMethod() + " " + operation.getUrl()
+                                + ": " + result.getStatusCode() + " " + result.getStatusText());
+                    }
+                }
+            }
+
+            // whatever is still pending was either not serviced or failed with a transient error
+            if (lastAttempt) {
+                pending.values().forEach(operation -> failures.add(
+                        operation.getMethod() + " " + operation.getUrl() + ": not serviced"));
+                pending.clear();
+            }
+        }
+
+        return failures;
+    }
+
+    /**
+     * @param batchRequest batch request to send
+     * @return batch response, or null if the whole batch request failed with a transient error
+     */
+    protected BatchResponse postBatch(final BatchRequest batchRequest) {
         WebClient webClient = getOpWebClient(BATCH_OP, null);
 
         LOG.ok("BATCH: {0}", webClient.getCurrentURI());
@@ -220,21 +1247,30 @@ public class SNClient extends SNService {
 
         try {
             payload = SNUtils.MAPPER.writeValueAsString(batchRequest);
-            Response response = webClient.post(payload);
+            String entity = payload;
+            Response response = execute(webClient, client -> client.post(entity));
+            if (response != null && (response.getStatus() == SNRateLimiter.TOO_MANY_REQUESTS
+                    || response.getStatus() >= SERVER_ERROR)) {
+
+                LOG.warn("Batch request {0} failed with status {1}",
+                        batchRequest.getBatchRequestId(), response.getStatus());
+                response.close();
+                return null;
+            }
             String responseAsString = checkServiceErrors(response);
 
-            JsonNode result = SNUtils.MAPPER.readTree(responseAsString);
-            if (result.hasNonNull(RESPONSE_BATCH_REQUEST_ID) && result.hasNonNull(RESPONSE_SERVICED_REQUESTS)) {
-                LOG.ok("Batch request successfully executed {0}: ", responseAsString);
-            } else {
+            BatchResponse result = SNUtils.MAPPER.readValue(responseAsString, BatchResponse.class);
+            if (result.getBatchRequestId() == null) {
                 LOG.error("Batch request error with payload {0}: ", payload);
                 SNUtils.handleGeneralError("While executing batch request - Response: " + responseAsString);
             }
+            LOG.ok("Batch request executed {0}: ", result);
+            return result;
         } catch (IOException ex) {
             LOG.error("BATCH payload {0}: ", payload);
-            SNUtils.handleGeneralError("While creating Resource", ex);
+            SNUtils.handleGeneralError("While executing batch request", ex);
         }
-
+        return null;
     }
 
     private <T extends Resource> PagedResults<T> doGetResources(final WebClient webClient, Class<T> clazz) {
@@ -257,4 +1293,74 @@ public class SNClient extends SNService {
 
         return resources;
     }
+
+    /**
+     * Keeps the record returned by Service Now after a create or update, for the connector to read its own writes;
+     * the record is also cached for later revalidation.
+     */
+    private void rememberWrite(final ResourceTable type, final JsonNode node) {
+        ResourceCodec codec = type == ResourceTable.sys_user
+                ? ResourceCodec.USER
+                : type == ResourceTable.sys_user_group ? ResourceCodec.GROUP : null;
+        if (codec == null || node == null) {
+            return;
+        }
+
+        try {
+            BaseEntity written = codec.reader().readValue(node);
+            String key = cacheKey(codec.getTable(), written.getSysId());
+            int modCount = codec.indexOf(SNAttributes.RESOURCE_ATTRIBUTE_MOD_COUNT);
+
+            writeCache.put(key, written);
+            resourceCache.put(key, new CachedResource(
+                    written, null, modCount == -1 ? null : codec.get(written, modCount)));
+        } catch (IOException e) {
+            LOG.error(e, "While converting from JSON to Resource");
+        }
+    }
+
+    /**
+     * Keeps the record returned by Service Now for a create sent in a batch request, as for single creates.
+     */
+    private void rememberBatchWrite(final BatchOperation operation, final BatchOperationResult result) {
+        String body = result.decodeBody();
+        if (config.getWriteCacheSize() == 0 || !HttpMethod.POST.equals(operation.getMethod()) || body == null) {
+            return;
+        }
+        for (ResourceTable type : new ResourceTable[] { ResourceTable.sys_user, ResourceTable.sys_user_group }) {
+            if ((TABLE_API_PATH + type.name()).equals(operation.getUrl())) {
+                try {
+                    rememberWrite(type, SNUtils.MAPPER.readTree(body).get(RESPONSE_RESULT));
+                } catch (IOException e) {
+                    LOG.error(e, "While converting from JSON to Resource");
+                }
+            }
+        }
+    }
+
+    private static String cacheKey(final String table, final String id) {
+        return table + "/" + id;
+    }
+
+    /**
+     * Record read by sys_id, along with the fields read (null for all) and its sys_mod_count when read.
+     */
+    private static final class CachedResource {
+
+        private final BaseEntity resource;
+
+        private final Set<String> fields;
+
+        private final String modCount;
+
+        CachedResource(final BaseEntity resource, final Set<String> fields, final String modCount) {
+            this.resource = resource;
+            this.fields = fields;
+            this.modCount = modCount;
+        }
+
+        boolean covers(final Set<String> requested) {
+            return fields == null || (requested != null && fields.containsAll(requested));
+        }
+    }
 }
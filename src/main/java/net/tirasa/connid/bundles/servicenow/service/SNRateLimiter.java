@@ -0,0 +1,251 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow.service;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.core.Response;
+import net.tirasa.connid.bundles.servicenow.SNConnectorConfiguration;
+import org.identityconnectors.common.StringUtil;
+import org.identityconnectors.common.logging.Log;
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
+
+/**
+ * Token bucket limiting the rate of requests towards a Service Now instance, shared by all connectors with the same
+ * base address, username and configured rate, until all of them released it.
+ *
+ * The rate starts from the configured one (if any) and is then adapted to the {@code X-RateLimit-*} headers returned
+ * by Service Now, spreading the remaining requests over the rest of the current window; {@code Retry-After} pauses
+ * all requests for the time requested.
+ */
+public final class SNRateLimiter {
+
+    private static final Log LOG = Log.getLog(SNRateLimiter.class);
+
+    public static final String HEADER_LIMIT = "X-RateLimit-Limit";
+
+    public static final String HEADER_REMAINING = "X-RateLimit-Remaining";
+
+    public static final String HEADER_RESET = "X-RateLimit-Reset";
+
+    public static final String HEADER_RETRY_AFTER = "Retry-After";
+
+    /**
+     * Service Now rate limit rules count requests per hour.
+     */
+    private static final long DEFAULT_WINDOW_SECONDS = 3600L;
+
+    static final int TOO_MANY_REQUESTS = 429;
+
+    private static final long DEFAULT_RETRY_AFTER_MILLIS = 1000L;
+
+    private static final Map<String, SNRateLimiter> LIMITERS = new ConcurrentHashMap<>();
+
+    /**
+     * @param config configuration
+     * @return rate limiter shared by all connectors with the same base address, username and configured rate, to be
+     * released once no longer used
+     */
+    public static SNRateLimiter of(final SNConnectorConfiguration config) {
+        return LIMITERS.compute(
+                config.getBaseAddress() + "|" + config.getUsername() + "|" + config.getRateLimit(),
+                (key, limiter) -> {
+                    SNRateLimiter shared = limiter == null ? new SNRateLimiter(key, config.getRateLimit()) : limiter;
+                    shared.references++;
+                    return shared;
+                });
+    }
+
+    /**
+     * Key of this limiter among the shared ones, null if not shared.
+     */
+    private final String key;
+
+    /**
+     * Connectors using this limiter; only read and written while computing its entry among the shared ones.
+     */
+    private int references;
+
+    /**
+     * Configured requests per second, 0 if none.
+     */
+    private final double configuredRate;
+
+    /**
+     * Current requests per second, 0 if unlimited.
+     */
+    private double rate;
+
+    private double tokens;
+
+    private long refilledAt = System.nanoTime();
+
+    private long pausedUntil = refilledAt;
+
+    SNRateLimiter(final double configuredRate) {
+        this(null, configuredRate);
+    }
+
+    private SNRateLimiter(final String key, final double configuredRate) {
+        this.key = key;
+        this.configuredRate = configuredRate;
+        this.rate = configuredRate;
+        this.tokens = capacity();
+    }
+
+    private double capacity() {
+        // bursts of up to one second of requests
+        return Math.max(1.0, rate);
+    }
+
+    /**
+     * Releases this limiter, no longer shared once released by all the connectors which got it.
+     */
+    public void release() {
+        if (key != null) {
+            LIMITERS.computeIfPresent(key, (k, limiter) -> limiter != this || --references > 0 ? limiter : null);
+        }
+    }
+
+    boolean isShared() {
+        return key != null && LIMITERS.get(key) == this;
+    }
+
+    /**
+     * Waits until a request can be sent.
+     */
+    public void acquire() {
+        long wait = reserve(System.nanoTime());
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConnectorException("Interrupted while waiting for rate limit", e);
+            }
+        }
+    }
+
+    /**
+     * Takes a token, possibly in advance.
+     *
+     * @param now current time, in nanoseconds
+     * @return time to wait before sending the request, in nanoseconds
+     */
+    synchronized long reserve(final long now) {
+        long wait = Math.max(0L, pausedUntil - now);
+        if (rate > 0) {
+            tokens = Math.min(capacity(), tokens + (now - refilledAt) * rate / TimeUnit.SECONDS.toNanos(1));
+            refilledAt = now;
+
+            tokens -= 1;
+            if (tokens < 0) {
+                wait = Math.max(wait, (long) (-tokens / rate * TimeUnit.SECONDS.toNanos(1)));
+            }
+        }
+        return wait;
+    }
+
+    /**
+     * Adapts the rate to the headers of the given response; when rate limited, pauses all requests as requested.
+     *
+     * @param response response
+     * @return whether the response reports the request as rate limited
+     */
+    public boolean observe(final Response response) {
+        long now = System.currentTimeMillis();
+        adapt(response.getHeaderString(HEADER_LIMIT),
+                response.getHeaderString(HEADER_REMAINING),
+                response.getHeaderString(HEADER_RESET),
+                now);
+
+        if (response.getStatus() != TOO_MANY_REQUESTS) {
+            return false;
+        }
+
+        long retryAfter = retryAfterMillis(response.getHeaderString(HEADER_RETRY_AFTER), now);
+        LOG.warn("Rate limited by Service Now, pausing requests for {0} ms", retryAfter);
+        pause(System.nanoTime(), TimeUnit.MILLISECONDS.toNanos(retryAfter));
+        return true;
+    }
+
+    synchronized void adapt(final String limit, final String remaining, final String reset, final long nowMillis) {
+        Long remainingCount = parse(remaining);
+        Long resetSeconds = parse(reset);
+        Long limitCount = parse(limit);
+
+        double learnt;
+        if (remainingCount != null && resetSeconds != null) {
+            long window = Math.max(1L, resetSeconds - TimeUnit.MILLISECONDS.toSeconds(nowMillis));
+            if (remainingCount <= 0) {
+                pause(System.nanoTime(), TimeUnit.SECONDS.toNanos(window));
+            }
+            learnt = Math.max(remainingCount, 1L) / (double) window;
+        } else if (limitCount != null && limitCount > 0) {
+            learnt = limitCount / (double) DEFAULT_WINDOW_SECONDS;
+        } else {
+            return;
+        }
+
+        double adapted = configuredRate > 0 ? Math.min(configuredRate, learnt) : learnt;
+        if (adapted != rate) {
+            LOG.ok("Adapting rate limit from {0} to {1} requests per second", rate, adapted);
+            rate = adapted;
+            tokens = Math.min(tokens, capacity());
+        }
+    }
+
+    synchronized void pause(final long now, final long nanos) {
+        pausedUntil = Math.max(pausedUntil, now + nanos);
+    }
+
+    synchronized double getRate() {
+        return rate;
+    }
+
+    static long retryAfterMillis(final String retryAfter, final long nowMillis) {
+        if (StringUtil.isBlank(retryAfter)) {
+            return DEFAULT_RETRY_AFTER_MILLIS;
+        }
+
+        Long seconds = parse(retryAfter);
+        if (seconds != null) {
+            return Math.max(0L, TimeUnit.SECONDS.toMillis(seconds));
+        }
+        try {
+            Instant at = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return Math.max(0L, at.toEpochMilli() - nowMillis);
+        } catch (DateTimeParseException e) {
+            return DEFAULT_RETRY_AFTER_MILLIS;
+        }
+    }
+
+    private static Long parse(final String value) {
+        if (StringUtil.isBlank(value)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -15,12 +15,19 @@
  */
 package net.tirasa.connid.bundles.servicenow.service;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import net.tirasa.connid.bundles.servicenow.SNConnectorConfiguration;
@@ -30,7 +37,6 @@ import net.tirasa.connid.bundles.servicenow.utils.SNUtils;
 import org.apache.cxf.jaxrs.client.WebClient;
 import org.identityconnectors.common.StringUtil;
 import org.identityconnectors.common.logging.Log;
-import org.identityconnectors.common.security.SecurityUtil;
 
 public class SNService {
 
@@ -38,6 +44,12 @@ public class SNService {
 
     protected final SNConnectorConfiguration config;
 
+    protected final SNTransport transport;
+
+    protected final SNRateLimiter rateLimiter;
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
     public final static String RESPONSE_RESULT = "result";
 
     public final static String RESPONSE_BATCH_REQUEST_ID = "batch_request_id";
@@ -57,16 +69,49 @@ public class SNService {
 
     public SNService(final SNConnectorConfiguration config) {
         this.config = config;
+        this.transport = new SNTransport(config);
+        this.rateLimiter = SNRateLimiter.of(config);
+    }
+
+    /**
+     * Sends a request once allowed by the rate limiter; requests rejected as rate limited are sent again after the
+     * pause requested by Service Now, up to the configured number of retries.
+     *
+     * @param webClient client to invoke
+     * @param call request to send
+     * @return response
+     */
+    protected Response execute(final WebClient webClient, final Function<WebClient, Response> call) {
+        Response response = null;
+        for (int attempt = 0; response == null; attempt++) {
+            rateLimiter.acquire();
+            Response current = call.apply(webClient);
+            if (rateLimiter.observe(current) && attempt < config.getRateLimitRetries()) {
+                LOG.ok("Retrying rate limited request {0}", webClient.getCurrentURI());
+                current.close();
+            } else {
+                response = current;
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Releases the pooled HTTP connections and the rate limiter held by this service.
+     */
+    public void close() {
+        transport.close();
+        if (released.compareAndSet(false, true)) {
+            rateLimiter.release();
+        }
     }
 
     public WebClient getTableWebClient(final ResourceTable table, final Map<String, String> params) {
-        WebClient webClient = WebClient
-                .create(config.getBaseAddress(),
-                        config.getUsername(),
-                        config.getPassword() == null ? null : SecurityUtil.decrypt(config.getPassword()),
-                        null)
-                .accept(MediaType.APPLICATION_JSON)
-                .type(MediaType.APPLICATION_JSON)
+        return getTableWebClient(table.name(), params);
+    }
+
+    public WebClient getTableWebClient(final String table, final Map<String, String> params) {
+        WebClient webClient = transport.webClient()
                 .path("/api/now/table/")
                 .path(table);
 
@@ -80,13 +125,7 @@ public class SNService {
     }
 
     public WebClient getOpWebClient(final String op, final Map<String, String> params) {
-        WebClient webClient = WebClient
-                .create(config.getBaseAddress(),
-                        config.getUsername(),
-                        config.getPassword() == null ? null : SecurityUtil.decrypt(config.getPassword()),
-                        null)
-                .accept(MediaType.APPLICATION_JSON)
-                .type(MediaType.APPLICATION_JSON)
+        WebClient webClient = transport.webClient()
                 .path("/api/now/v1")
                 .path(op);
 
@@ -104,7 +143,7 @@ public class SNService {
         JsonNode result = null;
 
         try {
-            Response response = webClient.get();
+            Response response = execute(webClient, WebClient::get);
 
             result = SNUtils.MAPPER.readTree(checkServiceErrors(response));
             if (result.get(RESPONSE_RESULT).isArray()) {
@@ -122,19 +161,91 @@ public class SNService {
         return result;
     }
 
-    protected void doCreate(final Resource resource, final WebClient webClient) {
+    /**
+     * Reads the {@code result} array of the response body one element at a time, handing each bound element to the
+     * given consumer; the response is closed as soon as the consumer returns {@code false}.
+     *
+     * @param <T> element type
+     * @param webClient client to invoke
+     * @param clazz element class
+     * @param consumer element consumer, returning {@code false} to stop reading
+     * @return number of elements read
+     */
+    protected <T> int doStream(final WebClient webClient, final Class<T> clazz, final Predicate<? super T> consumer) {
+        return doStream(webClient, SNUtils.MAPPER.readerFor(clazz), consumer);
+    }
+
+    protected <T> int doStream(
+            final WebClient webClient,
+            final ObjectReader reader,
+            final Predicate<? super T> consumer) {
+
+        LOG.ok("GET: {0}", webClient.getCurrentURI());
+        int count = 0;
+
+        Response response = execute(webClient, WebClient::get);
+        try {
+            checkStreamErrors(response);
+
+            try (JsonParser parser = SNUtils.MAPPER.getFactory().createParser(
+                    response.readEntity(InputStream.class))) {
+
+                if (seekResultArray(parser)) {
+                    boolean proceed = true;
+                    while (proceed && parser.nextToken() == JsonToken.START_OBJECT) {
+                        T element = reader.readValue(parser);
+                        count++;
+                        proceed = consumer.test(element);
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            SNUtils.handleGeneralError("While streaming data from ServiceNow", ex);
+        } finally {
+            response.close();
+        }
+
+        return count;
+    }
+
+    private static boolean seekResultArray(final JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (RESPONSE_RESULT.equals(field) && value == JsonToken.START_ARRAY) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    /**
+     * Creates the given Resource, setting its sys_id as assigned by Service Now.
+     *
+     * @param resource Resource to create
+     * @param webClient client to invoke
+     * @return record created, as returned by Service Now
+     */
+    protected JsonNode doCreate(final Resource resource, final WebClient webClient) {
         LOG.ok("CREATE: {0}", webClient.getCurrentURI());
+        JsonNode created = null;
         String payload = null;
 
         try {
             payload = SNUtils.MAPPER.writeValueAsString(resource);
-            Response response = webClient.post(payload);
+            String entity = payload;
+            Response response = execute(webClient, client -> client.post(entity));
             String responseAsString = checkServiceErrors(response);
 
             JsonNode result = SNUtils.MAPPER.readTree(responseAsString);
             if (result.hasNonNull(RESPONSE_RESULT)
                     && result.get(RESPONSE_RESULT).hasNonNull(SNAttributes.RESOURCE_ATTRIBUTE_ID)) {
-                resource.setSysId(result.get(RESPONSE_RESULT).get(SNAttributes.RESOURCE_ATTRIBUTE_ID).textValue());
+                created = result.get(RESPONSE_RESULT);
+                resource.setSysId(created.get(SNAttributes.RESOURCE_ATTRIBUTE_ID).textValue());
             } else {
                 LOG.error("CREATE payload {0}: ", payload);
                 SNUtils.handleGeneralError("While getting " + SNAttributes.RESOURCE_ATTRIBUTE_ID
@@ -144,6 +255,7 @@ public class SNService {
             LOG.error("CREATE payload {0}: ", payload);
             SNUtils.handleGeneralError("While creating Resource", ex);
         }
+        return created;
     }
 
     protected <T extends Resource> T doCreate(final Map<String, Object> input, final WebClient webClient) {
@@ -153,7 +265,8 @@ public class SNService {
 
         try {
             payload = SNUtils.MAPPER.writeValueAsString(input);
-            Response response = webClient.post(payload);
+            String entity = payload;
+            Response response = execute(webClient, client -> client.post(entity));
             String responseAsString = checkServiceErrors(response);
 
             JsonNode result = SNUtils.MAPPER.readTree(responseAsString);
@@ -179,10 +292,10 @@ public class SNService {
         JsonNode result = null;
         String payload = null;
 
-        WebClient.getConfig(webClient).getRequestContext().put("use.async.http.conduit", true);
         try {
             payload = SNUtils.MAPPER.writeValueAsString(resource);
-            Response response = webClient.invoke("PATCH", payload);
+            String entity = payload;
+            Response response = execute(webClient, client -> client.invoke("PATCH", entity));
             String responseAsString = checkServiceErrors(response);
 
             result = SNUtils.MAPPER.readTree(responseAsString);
@@ -203,9 +316,37 @@ public class SNService {
 
     protected void doDelete(final String userId, final WebClient webClient) {
         LOG.ok("DELETE: {0}", webClient.getCurrentURI());
-        int status = webClient.delete().getStatus();
-        if (status != Response.Status.NO_CONTENT.getStatusCode() && status != Response.Status.OK.getStatusCode()) {
-            throw new NoSuchEntityException(userId);
+        Response response = execute(webClient, WebClient::delete);
+        if (response == null) {
+            SNUtils.handleGeneralError("While deleting " + userId + " - no response");
+        }
+
+        try {
+            int status = response.getStatus();
+            if (status == SNRateLimiter.TOO_MANY_REQUESTS
+                    || Response.Status.Family.familyOf(status) == Response.Status.Family.SERVER_ERROR) {
+
+                SNUtils.handleGeneralError("While deleting " + userId + " - status " + status);
+            } else if (status != Response.Status.NO_CONTENT.getStatusCode()
+                    && status != Response.Status.OK.getStatusCode()) {
+
+                throw new NoSuchEntityException(userId);
+            }
+        } finally {
+            response.close();
+        }
+    }
+
+    protected void checkStreamErrors(final Response response) {
+        if (response == null) {
+            SNUtils.handleGeneralError("While executing request - no response");
+        }
+
+        if (response.getStatus() != Response.Status.OK.getStatusCode()) {
+            SNUtils.handleGeneralError("While executing request: " + checkServiceErrors(response));
+        } else if (MediaType.TEXT_HTML_TYPE.isCompatible(response.getMediaType())) {
+            SNUtils.handleGeneralError("While executing request - bad response from service: "
+                    + response.readEntity(String.class));
         }
     }
 
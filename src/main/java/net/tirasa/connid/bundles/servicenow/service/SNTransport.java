@@ -0,0 +1,90 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import net.tirasa.connid.bundles.servicenow.SNConnectorConfiguration;
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.jaxrs.client.JAXRSClientFactoryBean;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.transport.http.asyncclient.AsyncHTTPConduitFactory;
+import org.identityconnectors.common.logging.Log;
+import org.identityconnectors.common.security.SecurityUtil;
+
+/**
+ * Long-lived HTTP transport towards a Service Now instance.
+ *
+ * All requests go through a single thread-safe {@link WebClient}, bound to a dedicated CXF bus whose asynchronous
+ * conduit keeps a bounded pool of keep-alive connections; the Basic authentication header is computed once.
+ */
+public class SNTransport implements AutoCloseable {
+
+    private static final Log LOG = Log.getLog(SNTransport.class);
+
+    private static final long SECONDS_TO_KEEP_STATE = 60L;
+
+    private final Bus bus;
+
+    private final WebClient webClient;
+
+    private final String authorization;
+
+    public SNTransport(final SNConnectorConfiguration config) {
+        bus = BusFactory.newInstance().createBus();
+        bus.setProperty(AsyncHTTPConduitFactory.USE_POLICY, AsyncHTTPConduitFactory.UseAsyncPolicy.ALWAYS);
+        bus.setProperty(AsyncHTTPConduitFactory.MAX_CONNECTIONS, config.getMaxConnections());
+        bus.setProperty(AsyncHTTPConduitFactory.MAX_PER_HOST_CONNECTIONS, config.getMaxConnectionsPerRoute());
+        bus.setProperty(AsyncHTTPConduitFactory.CONNECTION_MAX_IDLE, config.getConnectionMaxIdle());
+        bus.setProperty(AsyncHTTPConduitFactory.SO_KEEPALIVE, true);
+
+        JAXRSClientFactoryBean bean = new JAXRSClientFactoryBean();
+        bean.setBus(bus);
+        bean.setAddress(config.getBaseAddress());
+        bean.setThreadSafe(true);
+        bean.setSecondsToKeepState(SECONDS_TO_KEEP_STATE);
+        webClient = bean.createWebClient();
+
+        String credentials = config.getUsername() + ":"
+                + (config.getPassword() == null ? "" : SecurityUtil.decrypt(config.getPassword()));
+        authorization = "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the shared client, reset to the base address for the calling thread and carrying the default headers.
+     *
+     * @return client ready to be used for a new request
+     */
+    public WebClient webClient() {
+        webClient.reset();
+        return webClient.header(HttpHeaders.AUTHORIZATION, authorization)
+                .accept(MediaType.APPLICATION_JSON)
+                .type(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    public void close() {
+        try {
+            webClient.close();
+        } catch (Exception e) {
+            LOG.error(e, "While closing HTTP client");
+        }
+        bus.shutdown(true);
+    }
+}
@@ -0,0 +1,218 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Size-bounded cache evicting the least recently used entries, whose entries expire after a time-to-live.
+ * The size is the total weight of entries, each entry weighing 1 unless a weigher is given.
+ * Expired entries are not returned by {@link #get(Object)}, but are kept (until evicted) for callers able to
+ * revalidate them, see {@link #getEntry(Object)} and {@link #renew(Object, Entry)}.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class ExpiringCache<K, V> {
+
+    public static final class Entry<V> {
+
+        private final V value;
+
+        private final int weight;
+
+        private volatile long expiresAt;
+
+        private Entry(final V value, final int weight, final long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        private boolean isExpired(final long now) {
+            return now >= expiresAt;
+        }
+    }
+
+    private final long maxWeight;
+
+    private final long ttl;
+
+    private final ToIntFunction<? super V> weigher;
+
+    private final LongSupplier clock;
+
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long weight;
+
+    /**
+     * @param maxSize maximum number of entries
+     * @param ttl time-to-live of entries, in milliseconds; {@link Long#MAX_VALUE} for entries not to expire
+     */
+    public ExpiringCache(final int maxSize, final long ttl) {
+        this(maxSize, ttl, value -> 1);
+    }
+
+    /**
+     * @param maxWeight maximum total weight of entries
+     * @param ttl time-to-live of entries, in milliseconds; {@link Long#MAX_VALUE} for entries not to expire
+     * @param weigher weight of each value
+     */
+    public ExpiringCache(final long maxWeight, final long ttl, final ToIntFunction<? super V> weigher) {
+        this(maxWeight, ttl, weigher, System::currentTimeMillis);
+    }
+
+    ExpiringCache(
+            final long maxWeight,
+            final long ttl,
+            final ToIntFunction<? super V> weigher,
+            final LongSupplier clock) {
+
+        this.maxWeight = maxWeight;
+        this.ttl = ttl;
+        this.weigher = weigher;
+        this.clock = clock;
+    }
+
+    /**
+     * @param key key
+     * @return value, if cached and not expired
+     */
+    public synchronized V get(final K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(clock.getAsLong())) {
+            remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * @param key key
+     * @return entry, if cached, even if expired
+     */
+    public synchronized Entry<V> getEntry(final K key) {
+        return entries.get(key);
+    }
+
+    /**
+     * @param entry entry
+     * @return whether the given entry is expired
+     */
+    public boolean isExpired(final Entry<V> entry) {
+        return entry.isExpired(clock.getAsLong());
+    }
+
+    /**
+     * Caches the given value, evicting the least recently used entries as needed; values weighing more than the
+     * maximum weight are not cached.
+     *
+     * @param key key
+     * @param value value
+     */
+    public synchronized void put(final K key, final V value) {
+        remove(key);
+
+        int valueWeight = weigher.applyAsInt(value);
+        if (valueWeight > maxWeight) {
+            return;
+        }
+
+        for (Iterator<Entry<V>> itor = entries.values().iterator();
+                weight + valueWeight > maxWeight && itor.hasNext();) {
+
+            weight -= itor.next().weight;
+            itor.remove();
+        }
+        entries.put(key, new Entry<>(value, valueWeight, expiresAt()));
+        weight += valueWeight;
+    }
+
+    /**
+     * Extends the time-to-live of the given entry, if still cached, after it was found up-to-date.
+     *
+     * @param key key
+     * @param entry entry
+     */
+    public synchronized void renew(final K key, final Entry<V> entry) {
+        if (entries.get(key) == entry) {
+            entry.expiresAt = expiresAt();
+        }
+    }
+
+    private long expiresAt() {
+        long now = clock.getAsLong();
+        return ttl > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + ttl;
+    }
+
+    private void remove(final K key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            weight -= removed.weight;
+        }
+    }
+
+    public synchronized void invalidate(final K key) {
+        remove(key);
+    }
+
+    /**
+     * @param filter selects the keys of the entries to remove
+     */
+    public synchronized void invalidateAll(final Predicate<? super K> filter) {
+        entries.entrySet().removeIf(entry -> {
+            if (filter.test(entry.getKey())) {
+                weight -= entry.getValue().weight;
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * @param filter selects the values of the entries to remove
+     */
+    public synchronized void invalidateValues(final Predicate<? super V> filter) {
+        entries.entrySet().removeIf(entry -> {
+            if (filter.test(entry.getValue().value)) {
+                weight -= entry.getValue().weight;
+                return true;
+            }
+            return false;
+        });
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
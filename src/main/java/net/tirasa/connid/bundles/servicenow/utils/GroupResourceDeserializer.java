@@ -0,0 +1,26 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow.utils;
+
+import net.tirasa.connid.bundles.servicenow.dto.GroupResource;
+import net.tirasa.connid.bundles.servicenow.dto.ResourceCodec;
+
+public class GroupResourceDeserializer extends ResourceDeserializer<GroupResource> {
+
+    public GroupResourceDeserializer() {
+        super(ResourceCodec.GROUP, GroupResource::new);
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import java.io.IOException;
+import java.util.function.Supplier;
+import net.tirasa.connid.bundles.servicenow.dto.BaseEntity;
+import net.tirasa.connid.bundles.servicenow.dto.ResourceCodec;
+
+/**
+ * Reads a Service Now record straight into the fields of the given codec: unknown properties are skipped, references
+ * are read as {@code {"link": ..., "value": ...}} objects.
+ *
+ * @param <T> record type
+ */
+public abstract class ResourceDeserializer<T extends BaseEntity> extends JsonDeserializer<T> {
+
+    private static final String REFERENCE_LINK = "link";
+
+    private static final String REFERENCE_VALUE = "value";
+
+    private final ResourceCodec codec;
+
+    private final Supplier<T> factory;
+
+    protected ResourceDeserializer(final ResourceCodec codec, final Supplier<T> factory) {
+        this.codec = codec;
+        this.factory = factory;
+    }
+
+    @Override
+    public T deserialize(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+        T resource = factory.get();
+
+        JsonToken token = p.currentToken() == JsonToken.START_OBJECT ? p.nextToken() : p.currentToken();
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            int index = codec.indexOf(p.currentName());
+            JsonToken value = p.nextToken();
+
+            if (index == -1 || value == JsonToken.VALUE_NULL) {
+                p.skipChildren();
+            } else if (value == JsonToken.START_OBJECT) {
+                if (codec.isReference(index)) {
+                    readReference(p, resource, index);
+                } else {
+                    p.skipChildren();
+                }
+            } else if (value.isScalarValue()) {
+                // as SNComplexDeserializer, references represented as plain strings are left null
+                if (!codec.isReference(index)) {
+                    codec.set(resource, index, p.getText(), null);
+                }
+            } else {
+                p.skipChildren();
+            }
+        }
+
+        return resource;
+    }
+
+    private void readReference(final JsonParser p, final T resource, final int index) throws IOException {
+        String link = null;
+        String value = null;
+        for (JsonToken token = p.nextToken(); token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String name = p.currentName();
+            p.nextToken();
+            if (REFERENCE_LINK.equals(name)) {
+                link = p.getValueAsString();
+            } else if (REFERENCE_VALUE.equals(name)) {
+                value = p.getValueAsString();
+            } else {
+                p.skipChildren();
+            }
+        }
+        codec.setReference(resource, index, value, link);
+    }
+}
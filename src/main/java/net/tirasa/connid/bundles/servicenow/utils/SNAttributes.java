@@ -15,12 +15,10 @@
  */
 package net.tirasa.connid.bundles.servicenow.utils;
 
-import java.lang.reflect.Field;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import net.tirasa.connid.bundles.servicenow.SNConnector;
-import net.tirasa.connid.bundles.servicenow.dto.Resource;
-import org.identityconnectors.framework.common.objects.AttributeBuilder;
+import net.tirasa.connid.bundles.servicenow.dto.ResourceCodec;
 import org.identityconnectors.framework.common.objects.AttributeInfoBuilder;
 import org.identityconnectors.framework.common.objects.Name;
 import org.identityconnectors.framework.common.objects.ObjectClass;
@@ -28,6 +26,9 @@ import org.identityconnectors.framework.common.objects.ObjectClassInfo;
 import org.identityconnectors.framework.common.objects.ObjectClassInfoBuilder;
 import org.identityconnectors.framework.common.objects.Schema;
 import org.identityconnectors.framework.common.objects.SchemaBuilder;
+import org.identityconnectors.framework.spi.operations.CreateOp;
+import org.identityconnectors.framework.spi.operations.DeleteOp;
+import org.identityconnectors.framework.spi.operations.UpdateOp;
 
 public final class SNAttributes {
 
@@ -36,10 +37,26 @@ public final class SNAttributes {
     public static final String USER_ATTRIBUTE_USERNAME = "user_name";
 
     public static final String RESOURCE_ATTRIBUTE_NAME = "name";
+
+    public static final String USER_ATTRIBUTE_PASSWORD = "user_password";
     
     public static final String RESOURCE_ATTRIBUTE_LDAP_SERVER = "ldap_server";
 
+    public static final String RESOURCE_ATTRIBUTE_ACTIVE = "active";
+
+    public static final String RESOURCE_ATTRIBUTE_UPDATED_ON = "sys_updated_on";
+
+    public static final String RESOURCE_ATTRIBUTE_MOD_COUNT = "sys_mod_count";
+
     public static Schema buildSchema() {
+        return buildSchema(List.of());
+    }
+
+    /**
+     * @param tableCodecs codecs of the additional tables, each exposed for search as object class named after it
+     * @return schema
+     */
+    public static Schema buildSchema(final Collection<? extends ResourceCodec> tableCodecs) {
 
         SchemaBuilder builder = new SchemaBuilder(SNConnector.class);
 
@@ -47,7 +64,7 @@ public final class SNAttributes {
         ObjectClassInfo user;
         userBuilder.addAttributeInfo(Name.INFO);
 
-        buildAttributes(userBuilder);
+        buildAttributes(userBuilder, ResourceCodec.USER);
 
         user = userBuilder.build();
         builder.defineObjectClass(user);
@@ -56,50 +73,31 @@ public final class SNAttributes {
         ObjectClassInfo group;
         groupBuilder.addAttributeInfo(Name.INFO);
 
-        buildAttributes(groupBuilder);
+        buildAttributes(groupBuilder, ResourceCodec.GROUP);
 
         group = groupBuilder.build();
         builder.defineObjectClass(group);
 
-        return builder.build();
-    }
+        for (ResourceCodec codec : tableCodecs) {
+            ObjectClassInfoBuilder tableBuilder = new ObjectClassInfoBuilder().setType(codec.getTable());
+            tableBuilder.addAttributeInfo(Name.INFO);
 
-    private static void buildAttributes(final ObjectClassInfoBuilder builder) {
-        for (String attributeName : Resource.asMapAttributeField().keySet()) {
-            builder.addAttributeInfo(AttributeInfoBuilder.define(attributeName).build());
+            buildAttributes(tableBuilder, codec);
+
+            ObjectClassInfo table = tableBuilder.build();
+            builder.defineObjectClass(table);
+            builder.removeSupportedObjectClass(CreateOp.class, table);
+            builder.removeSupportedObjectClass(UpdateOp.class, table);
+            builder.removeSupportedObjectClass(DeleteOp.class, table);
         }
-    }
 
-    public static AttributeBuilder buildAttributeFromClassField(final Field field,
-            final String name,
-            final Object value) throws IllegalArgumentException, IllegalAccessException {
-        return doBuildAttributeFromClassField(name, value, field.getType());
+        return builder.build();
     }
 
-    public static AttributeBuilder doBuildAttributeFromClassField(final String name,
-            final Object value,
-            final Class<?> clazz) {
-        AttributeBuilder attributeBuilder = new AttributeBuilder();
-        if (value != null) {
-            if (clazz == boolean.class || clazz == Boolean.class) {
-                attributeBuilder.addValue(Boolean.class.cast(value));
-            } else if (value instanceof List<?>) {
-                ArrayList<?> list = new ArrayList<>((List<?>) value);
-                if (list.size() > 1) {
-                    for (Object elem : list) {
-                        doBuildAttributeFromClassField(name, elem, clazz);
-                    }
-                } else if (!list.isEmpty()) {
-                    attributeBuilder.addValue(list.get(0).toString());
-                }
-            } else {
-                attributeBuilder.addValue(value.toString());
-            }
-        }
-        if (name != null) {
-            attributeBuilder.setName(name);
+    private static void buildAttributes(final ObjectClassInfoBuilder builder, final ResourceCodec codec) {
+        for (String attributeName : codec.names()) {
+            builder.addAttributeInfo(AttributeInfoBuilder.define(attributeName).build());
         }
-        return attributeBuilder;
     }
 
 }
@@ -19,7 +19,11 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import org.identityconnectors.common.StringUtil;
 import org.identityconnectors.common.logging.Log;
 import org.identityconnectors.common.security.GuardedString;
@@ -33,6 +37,19 @@ public class SNUtils {
             .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
             .setDefaultPropertyInclusion(JsonInclude.Include.NON_NULL); // can send "" values
 
+    public static final String QUERY_AND = "^";
+
+    public static final String QUERY_NEW_QUERY = "^NQ";
+
+    /**
+     * Generates a new sys_id on client side, as 32 lowercase hexadecimal characters.
+     *
+     * @return new sys_id
+     */
+    public static String newSysId() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
     public static GuardedString createProtectedPassword(final String password) {
         GuardedString guardedString = new GuardedString(password.toCharArray());
         return guardedString;
@@ -59,20 +76,23 @@ public class SNUtils {
                 || (obj instanceof String ? StringUtil.isBlank(String.class.cast(obj)) : false);
     }
 
-    public static String fromUnderscoredToCamelCase(final String str) {
-        if (!str.contains("_") || str.contains("__")) {
-            return str;
+    /**
+     * Appends the given condition to every {@code ^NQ} branch of the given encoded query.
+     *
+     * @param query encoded query, can be null
+     * @param condition encoded condition, can be null
+     * @return combined encoded query
+     */
+    public static String andQuery(final String query, final String condition) {
+        if (StringUtil.isBlank(query)) {
+            return condition;
         }
-        String camelCaseString = "";
-        for (String part : str.split("_")) {
-            camelCaseString += part.substring(0, 1).toUpperCase() + part.substring(1).toLowerCase();
+        if (StringUtil.isBlank(condition)) {
+            return query;
         }
-        return camelCaseString.substring(0, 1).toLowerCase()
-                + camelCaseString.substring(1); // first letter must be lowerCase
-    }
-
-    public static String fromCamelCaseToUnderscored(final String str) {
-        return str.replaceAll("([a-z])([A-Z]+)", "$1_$2").toLowerCase();
+        return Arrays.stream(query.split(Pattern.quote(QUERY_NEW_QUERY)))
+                .map(branch -> branch + QUERY_AND + condition)
+                .collect(Collectors.joining(QUERY_NEW_QUERY));
     }
 
 }
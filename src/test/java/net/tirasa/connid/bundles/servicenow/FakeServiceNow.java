@@ -0,0 +1,428 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import net.tirasa.connid.bundles.servicenow.utils.SNUtils;
+
+/**
+ * In-memory Service Now instance serving, over HTTP, the Table and Batch API calls made by the connector, along with
+ * the subset of encoded queries they use; requests received are recorded, for tests to check what was sent.
+ */
+class FakeServiceNow implements AutoCloseable {
+
+    private static final String TABLE_PATH = "/api/now/table/";
+
+    private static final String BATCH_PATH = "/api/now/v1/batch";
+
+    /**
+     * Reference columns, by table, along with the table they refer to.
+     */
+    private static final Map<String, Map<String, String>> REFERENCES = Map.of(
+            "sys_user", Map.of("manager", "sys_user"),
+            "sys_user_grmember", Map.of("user", "sys_user", "group", "sys_user_group"));
+
+    /**
+     * Columns never returned, as Service Now does for passwords.
+     */
+    private static final Set<String> HIDDEN = Set.of("user_password");
+
+    private static final Pattern CONDITION = Pattern.compile(
+            "([a-z0-9_.]+?)(!=|>=|<=|=|>|<|NOT IN|IN|STARTSWITH|ISNOTEMPTY|ISEMPTY)(.*)");
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final Map<String, Map<String, ObjectNode>> tables = new HashMap<>();
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+
+    private int sequence;
+
+    FakeServiceNow() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String getBaseAddress() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * @return requests received, as method, path and decoded query string; operations of batch requests are
+     * recorded as well, prefixed by {@code batch}
+     */
+    List<String> getRequests() {
+        return requests;
+    }
+
+    List<String> getAuthorizations() {
+        return authorizations;
+    }
+
+    void clearRequests() {
+        requests.clear();
+    }
+
+    /**
+     * Adds a record to the given table, as if created outside the connector.
+     *
+     * @param table table
+     * @param json record, references as sys_id
+     * @return sys_id of the record added
+     */
+    synchronized String insert(final String table, final String json) {
+        try {
+            return create(table, (ObjectNode) SNUtils.MAPPER.readTree(json)).get("sys_id").asText();
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    synchronized List<JsonNode> records(final String table) {
+        return new ArrayList<>(table(table).values());
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private Map<String, ObjectNode> table(final String table) {
+        return tables.computeIfAbsent(table, k -> new LinkedHashMap<>());
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        requests.add(method + " " + path + (rawQuery == null ? "" : "?" + decode(rawQuery)));
+        authorizations.add(String.valueOf(exchange.getRequestHeaders().getFirst("Authorization")));
+
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery != null) {
+            for (String param : rawQuery.split("&")) {
+                int equals = param.indexOf('=');
+                params.put(decode(param.substring(0, equals)), decode(param.substring(equals + 1)));
+            }
+        }
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readAllBytes();
+        }
+
+        Reply reply;
+        synchronized (this) {
+            reply = BATCH_PATH.equals(path) && "POST".equals(method)
+                    ? batch(body)
+                    : table(method, path, params, body);
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        reply.headers.forEach((name, value) -> exchange.getResponseHeaders().add(name, value));
+        if (reply.body == null) {
+            exchange.sendResponseHeaders(reply.status, -1);
+        } else {
+            byte[] bytes = SNUtils.MAPPER.writeValueAsBytes(reply.body);
+            exchange.sendResponseHeaders(reply.status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+        exchange.close();
+    }
+
+    private Reply table(final String method, final String path, final Map<String, String> params, final byte[] body)
+            throws IOException {
+
+        if (!path.startsWith(TABLE_PATH)) {
+            return error(400, "Unsupported path " + path);
+        }
+        String[] segments = path.substring(TABLE_PATH.length()).split("/");
+        String table = segments[0];
+        String sysId = segments.length > 1 ? segments[1] : null;
+        Set<String> fields = params.containsKey("sysparm_fields")
+                ? Set.of(params.get("sysparm_fields").split(","))
+                : null;
+
+        switch (method) {
+            case "GET":
+                if (sysId == null) {
+                    return list(table, params, fields);
+                }
+                ObjectNode found = table(table).get(sysId);
+                return found == null ? error(404, "No Record found") : result(200, project(found, fields));
+
+            case "POST":
+                return result(201, project(create(table, (ObjectNode) SNUtils.MAPPER.readTree(body)), null));
+
+            case "PATCH":
+            case "PUT":
+                ObjectNode updated = table(table).get(sysId);
+                if (updated == null) {
+                    return error(404, "No Record found");
+                }
+                ((ObjectNode) SNUtils.MAPPER.readTree(body)).properties().forEach(
+                        field -> set(table, updated, field.getKey(), field.getValue()));
+                touch(updated);
+                return result(200, project(updated, null));
+
+            case "DELETE":
+                return table(table).remove(sysId) == null ? error(404, "No Record found") : new Reply(204, null);
+
+            default:
+                return error(405, "Unsupported method " + method);
+        }
+    }
+
+    private Reply list(final String table, final Map<String, String> params, final Set<String> fields) {
+        String query = params.getOrDefault("sysparm_query", "");
+
+        List<Predicate<JsonNode>> branches = new ArrayList<>();
+        Comparator<JsonNode> order = null;
+        for (String branch : query.split(Pattern.quote("^NQ"))) {
+            Predicate<JsonNode> all = record -> true;
+            Predicate<JsonNode> last = null;
+            for (String term : branch.split(Pattern.quote("^"))) {
+                if (term.isEmpty()) {
+                    continue;
+                }
+                if (term.startsWith("ORDERBY")) {
+                    boolean desc = term.startsWith("ORDERBYDESC");
+                    String column = term.substring(desc ? "ORDERBYDESC".length() : "ORDERBY".length());
+                    Comparator<JsonNode> by = Comparator.comparing(record -> value(record, column));
+                    by = desc ? by.reversed() : by;
+                    order = order == null ? by : order.thenComparing(by);
+                } else if (term.startsWith("OR")) {
+                    if (last == null) {
+                        return error(400, "Misplaced " + term);
+                    }
+                    Predicate<JsonNode> either = last.or(condition(term.substring(2)));
+                    last = either;
+                } else {
+                    if (last != null) {
+                        all = all.and(last);
+                    }
+                    last = condition(term);
+                }
+            }
+            branches.add(last == null ? all : all.and(last));
+        }
+
+        List<ObjectNode> matching = table(table).values().stream()
+                .filter(record -> branches.stream().anyMatch(branch -> branch.test(record)))
+                .collect(Collectors.toList());
+        if (order != null) {
+            matching.sort(order);
+        }
+
+        int offset = Integer.parseInt(params.getOrDefault("sysparm_offset", "0"));
+        int limit = Integer.parseInt(params.getOrDefault("sysparm_limit", "10000"));
+        ArrayNode result = SNUtils.MAPPER.createArrayNode();
+        matching.stream().skip(offset).limit(limit).forEach(record -> result.add(project(record, fields)));
+
+        Reply reply = result(200, result);
+        reply.headers.put("X-Total-Count", String.valueOf(matching.size()));
+        return reply;
+    }
+
+    private static Predicate<JsonNode> condition(final String term) {
+        Matcher matcher = CONDITION.matcher(term);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Unsupported condition " + term);
+        }
+        String column = matcher.group(1);
+        String operand = matcher.group(3);
+        switch (matcher.group(2)) {
+            case "=":
+                return record -> value(record, column).equals(operand);
+            case "!=":
+                return record -> !value(record, column).equals(operand);
+            case ">":
+                return record -> value(record, column).compareTo(operand) > 0;
+            case ">=":
+                return record -> value(record, column).compareTo(operand) >= 0;
+            case "<":
+                return record -> value(record, column).compareTo(operand) < 0;
+            case "<=":
+                return record -> value(record, column).compareTo(operand) <= 0;
+            case "IN":
+                return record -> List.of(operand.split(",")).contains(value(record, column));
+            case "NOT IN":
+                return record -> !List.of(operand.split(",")).contains(value(record, column));
+            case "STARTSWITH":
+                return record -> value(record, column).startsWith(operand);
+            case "ISNOTEMPTY":
+                return record -> !value(record, column).isEmpty();
+            default:
+                return record -> value(record, column).isEmpty();
+        }
+    }
+
+    /**
+     * @return column value, sys_id for references, empty if not set
+     */
+    private static String value(final JsonNode record, final String column) {
+        JsonNode value = record.path(column);
+        if (value.isObject()) {
+            value = value.path("value");
+        }
+        return value.isMissingNode() || value.isNull() ? "" : value.asText();
+    }
+
+    private Reply batch(final byte[] body) throws IOException {
+        JsonNode request = SNUtils.MAPPER.readTree(body);
+        ObjectNode response = SNUtils.MAPPER.createObjectNode();
+        response.put("batch_request_id", request.path("batch_request_id").asText());
+        ArrayNode serviced = response.putArray("serviced_requests");
+        response.putArray("unserviced_requests");
+
+        for (JsonNode operation : request.path("rest_requests")) {
+            String method = operation.path("method").asText();
+            String url = operation.path("url").asText();
+            requests.add("batch " + method + " " + url);
+
+            byte[] operationBody = operation.hasNonNull("body")
+                    ? Base64.getDecoder().decode(operation.get("body").asText())
+                    : new byte[0];
+            Reply reply = table(method, url, Map.of(), operationBody);
+
+            ObjectNode result = serviced.addObject();
+            result.put("id", operation.path("id").asText());
+            result.put("status_code", reply.status);
+            result.put("status_text", reply.status < 300 ? "OK" : "Error");
+            if (reply.body != null) {
+                result.put("body", Base64.getEncoder().encodeToString(SNUtils.MAPPER.writeValueAsBytes(reply.body)));
+            }
+        }
+        return new Reply(200, response);
+    }
+
+    private ObjectNode create(final String table, final ObjectNode input) {
+        ObjectNode record = SNUtils.MAPPER.createObjectNode();
+        String sysId = input.hasNonNull("sys_id") ? input.get("sys_id").asText() : SNUtils.newSysId();
+        record.put("sys_id", sysId);
+        input.properties().forEach(field -> set(table, record, field.getKey(), field.getValue()));
+        record.put("sys_created_on", now());
+        record.put("sys_mod_count", "-1");
+        touch(record);
+        table(table).put(sysId, record);
+        return record;
+    }
+
+    private void set(final String table, final ObjectNode record, final String column, final JsonNode value) {
+        if ("sys_id".equals(column) || value.isNull()) {
+            return;
+        }
+        String referred = REFERENCES.getOrDefault(table, Map.of()).get(column);
+        if (referred == null) {
+            record.put(column, value.isObject() ? value.path("value").asText() : value.asText());
+        } else {
+            String sysId = value.isObject() ? value.path("value").asText() : value.asText();
+            ObjectNode reference = record.putObject(column);
+            reference.put("link", getBaseAddress() + TABLE_PATH + referred + "/" + sysId);
+            reference.put("value", sysId);
+        }
+    }
+
+    private void touch(final ObjectNode record) {
+        record.put("sys_mod_count", String.valueOf(Integer.parseInt(record.path("sys_mod_count").asText("-1")) + 1));
+        record.put("sys_updated_on", now());
+    }
+
+    private String now() {
+        return EPOCH.plusSeconds(++sequence).format(DATE_TIME);
+    }
+
+    private static ObjectNode project(final ObjectNode record, final Set<String> fields) {
+        ObjectNode projected = SNUtils.MAPPER.createObjectNode();
+        record.properties().forEach(field -> {
+            if (!HIDDEN.contains(field.getKey()) && (fields == null || fields.contains(field.getKey()))) {
+                projected.set(field.getKey(), field.getValue().deepCopy());
+            }
+        });
+        return projected;
+    }
+
+    private static Reply result(final int status, final JsonNode result) {
+        ObjectNode body = SNUtils.MAPPER.createObjectNode();
+        body.set("result", result);
+        return new Reply(status, body);
+    }
+
+    private static Reply error(final int status, final String message) {
+        ObjectNode body = SNUtils.MAPPER.createObjectNode();
+        body.putObject("error").put("message", message);
+        body.put("status", "failure");
+        return new Reply(status, body);
+    }
+
+    private static String decode(final String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    private static final class Reply {
+
+        private final int status;
+
+        private final JsonNode body;
+
+        private final Map<String, String> headers = new HashMap<>();
+
+        Reply(final int status, final JsonNode body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
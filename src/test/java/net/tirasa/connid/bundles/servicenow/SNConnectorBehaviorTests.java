@@ -0,0 +1,427 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import net.tirasa.connid.bundles.servicenow.service.NoSuchEntityException;
+import net.tirasa.connid.bundles.servicenow.utils.SNUtils;
+import org.identityconnectors.framework.common.objects.Attribute;
+import org.identityconnectors.framework.common.objects.AttributeBuilder;
+import org.identityconnectors.framework.common.objects.AttributeUtil;
+import org.identityconnectors.framework.common.objects.ConnectorObject;
+import org.identityconnectors.framework.common.objects.Name;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.identityconnectors.framework.common.objects.OperationOptions;
+import org.identityconnectors.framework.common.objects.OperationOptionsBuilder;
+import org.identityconnectors.framework.common.objects.PredefinedAttributes;
+import org.identityconnectors.framework.common.objects.SearchResult;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.identityconnectors.framework.common.objects.filter.Filter;
+import org.identityconnectors.framework.common.objects.filter.FilterBuilder;
+import org.identityconnectors.framework.spi.SearchResultsHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Connector operations against an in-memory Service Now instance, checking results along with the requests sent.
+ */
+public class SNConnectorBehaviorTests {
+
+    private static final String USERNAME = "admin";
+
+    private static final String PASSWORD = "Password01";
+
+    private static final String USERS = "GET /api/now/table/sys_user?";
+
+    private FakeServiceNow instance;
+
+    private SNConnectorConfiguration conf;
+
+    private SNConnector conn;
+
+    @BeforeEach
+    public void start() throws IOException {
+        instance = new FakeServiceNow();
+
+        conf = new SNConnectorConfiguration();
+        conf.setBaseAddress(instance.getBaseAddress());
+        conf.setUsername(USERNAME);
+        conf.setPassword(SNUtils.createProtectedPassword(PASSWORD));
+    }
+
+    @AfterEach
+    public void stop() {
+        if (conn != null) {
+            conn.dispose();
+        }
+        instance.close();
+    }
+
+    private SNConnector connector() {
+        conn = new SNConnector();
+        conn.init(conf);
+        return conn;
+    }
+
+    private List<String> addUsers(final int count) {
+        List<String> sysIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            sysIds.add(instance.insert("sys_user", "{\"user_name\":\"user" + i + "\",\"city\":\"Rome\"}"));
+        }
+        return sysIds;
+    }
+
+    private List<ConnectorObject> search(
+            final ObjectClass objectClass,
+            final Filter filter,
+            final OperationOptions options) {
+
+        List<ConnectorObject> objects = new ArrayList<>();
+        conn.executeQuery(objectClass, filter, objects::add, options);
+        return objects;
+    }
+
+    /**
+     * @return requests received since the last clear, skipping the ones matching none of the given prefixes
+     */
+    private List<String> requests(final String... prefixes) {
+        return instance.getRequests().stream()
+                .filter(request -> prefixes.length == 0 || List.of(prefixes).stream().anyMatch(request::startsWith))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return values of the given parameter in the requests matching the given prefix, if set
+     */
+    private List<String> params(final String prefix, final String name) {
+        return requests(prefix).stream()
+                .flatMap(request -> Arrays.stream(request.substring(request.indexOf('?') + 1).split("&")))
+                .filter(param -> param.startsWith(name + "="))
+                .map(param -> param.substring(name.length() + 1))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Reads a page of users, keeping the objects handed.
+     *
+     * @return cookie of the next page
+     */
+    private String page(final List<ConnectorObject> objects, final String cookie, final int pageSize) {
+        OperationOptionsBuilder options = new OperationOptionsBuilder().setPageSize(pageSize);
+        if (cookie != null) {
+            options.setPagedResultsCookie(cookie);
+        }
+        AtomicReference<String> next = new AtomicReference<>();
+        conn.executeQuery(ObjectClass.ACCOUNT, null, new SearchResultsHandler() {
+
+            @Override
+            public boolean handle(final ConnectorObject object) {
+                return objects.add(object);
+            }
+
+            @Override
+            public void handleResult(final SearchResult result) {
+                next.set(result.getPagedResultsCookie());
+            }
+        }, options.build());
+        return next.get();
+    }
+
+    @Test
+    public void sharedTransport() {
+        List<String> sysIds = addUsers(40);
+        conf.setScanParallelism(4);
+        conf.setScanChunkSize(5);
+        connector();
+
+        // concurrent requests share one client: each one must still carry its own path, query and headers
+        List<ConnectorObject> objects = search(ObjectClass.ACCOUNT, null, new OperationOptionsBuilder().build());
+        assertEquals(new HashSet<>(sysIds),
+                objects.stream().map(object -> object.getUid().getUidValue()).collect(Collectors.toSet()));
+        assertEquals(sysIds.size(), objects.size());
+        assertTrue(requests(USERS).size() >= 16);
+
+        Set<String> authorizations = new HashSet<>(instance.getAuthorizations());
+        assertEquals(Set.of("Basic " + Base64.getEncoder().encodeToString(
+                (USERNAME + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8))), authorizations);
+    }
+
+    @Test
+    public void handlerStopsScan() {
+        addUsers(10);
+        conf.setScanChunkSize(2);
+        connector();
+
+        List<ConnectorObject> objects = new ArrayList<>();
+        conn.executeQuery(ObjectClass.ACCOUNT, null, object -> objects.add(object) && objects.size() < 3,
+                new OperationOptionsBuilder().build());
+        assertEquals(3, objects.size());
+        assertEquals(2, requests(USERS).size());
+    }
+
+    @Test
+    public void keysetCookies() {
+        List<String> sysIds = addUsers(5);
+        Collections.sort(sysIds);
+        conf.setKeysetPaging(true);
+        connector();
+
+        List<ConnectorObject> objects = new ArrayList<>();
+        String cookie = page(objects, null, 2);
+        assertEquals(sysIds.get(1), cookie);
+        assertEquals(List.of("ORDERBYsys_id"), params(USERS, "sysparm_query"));
+        assertEquals(List.of("2"), params(USERS, "sysparm_limit"));
+
+        // records added before the cookie do not shift next pages
+        instance.insert("sys_user", "{\"sys_id\":\"" + "0".repeat(32) + "\",\"user_name\":\"first\"}");
+        instance.clearRequests();
+
+        cookie = page(objects, cookie, 2);
+        assertEquals(sysIds.get(3), cookie);
+        assertEquals(List.of("sys_id>" + sysIds.get(1) + "^ORDERBYsys_id"), params(USERS, "sysparm_query"));
+        assertEquals(List.of(), params(USERS, "sysparm_offset"));
+
+        assertNull(page(objects, cookie, 2));
+        assertEquals(sysIds,
+                objects.stream().map(object -> object.getUid().getUidValue()).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void chunkedScan() {
+        List<String> sysIds = addUsers(5);
+        Collections.sort(sysIds);
+        conf.setScanChunkSize(2);
+        connector();
+
+        List<ConnectorObject> objects = search(ObjectClass.ACCOUNT, null, new OperationOptionsBuilder().build());
+        assertEquals(sysIds,
+                objects.stream().map(object -> object.getUid().getUidValue()).collect(Collectors.toList()));
+
+        // each chunk goes on from the last sys_id read, the scan ends with the first chunk not full
+        assertEquals(List.of(
+                "ORDERBYsys_id",
+                "sys_id>" + sysIds.get(1) + "^ORDERBYsys_id",
+                "sys_id>" + sysIds.get(3) + "^ORDERBYsys_id"), params(USERS, "sysparm_query"));
+        assertEquals(List.of("2", "2", "2"), params(USERS, "sysparm_limit"));
+    }
+
+    @Test
+    public void fieldsPushdown() {
+        List<String> sysIds = addUsers(2);
+        connector();
+
+        OperationOptions options = new OperationOptionsBuilder()
+                .setAttributesToGet("city", PredefinedAttributes.GROUPS_NAME).build();
+        search(ObjectClass.ACCOUNT, null, options);
+        search(ObjectClass.ACCOUNT, FilterBuilder.equalTo(new Uid(sysIds.get(0))), options);
+
+        // Uid and Name columns are always read, attributes not being columns never are
+        Set<String> expected = Set.of("sys_id", "user_name", "name", "city");
+        List<String> fields = params(USERS, "sysparm_fields");
+        fields.addAll(params("GET /api/now/table/sys_user/" + sysIds.get(0), "sysparm_fields"));
+        assertEquals(2, fields.size());
+        fields.forEach(field -> assertEquals(expected, Set.of(field.split(","))));
+    }
+
+    @Test
+    public void membershipDelta() {
+        String user = addUsers(1).get(0);
+        List<String> groups = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            groups.add(instance.insert("sys_user_group", "{\"name\":\"group" + i + "\"}"));
+        }
+        String removed = instance.insert("sys_user_grmember",
+                "{\"user\":\"" + user + "\",\"group\":\"" + groups.get(0) + "\"}");
+        String kept = instance.insert("sys_user_grmember",
+                "{\"user\":\"" + user + "\",\"group\":\"" + groups.get(1) + "\"}");
+        connector();
+
+        // memberships are left alone unless __GROUPS__ is updated
+        conn.update(ObjectClass.ACCOUNT, new Uid(user), Set.of(AttributeBuilder.build("city", "Milan")),
+                new OperationOptionsBuilder().build());
+        assertEquals(List.of(), requests("GET /api/now/table/sys_user_grmember", "POST /api/now/v1/batch"));
+
+        // only the membership removed is deleted, only the one added is created
+        conn.update(ObjectClass.ACCOUNT, new Uid(user), Set.of(
+                AttributeBuilder.build(PredefinedAttributes.GROUPS_NAME, groups.get(1), groups.get(2))),
+                new OperationOptionsBuilder().build());
+        assertEquals(List.of(
+                "batch DELETE /api/now/table/sys_user_grmember/" + removed,
+                "batch POST /api/now/table/sys_user_grmember"), requests("batch "));
+
+        List<JsonNode> memberships = instance.records("sys_user_grmember");
+        assertEquals(Set.of(groups.get(1), groups.get(2)), memberships.stream()
+                .map(membership -> membership.path("group").path("value").asText()).collect(Collectors.toSet()));
+        assertTrue(memberships.stream().anyMatch(membership -> kept.equals(membership.path("sys_id").asText())));
+    }
+
+    @Test
+    public void requestedAttributesOnly() {
+        String user = instance.insert("sys_user",
+                "{\"user_name\":\"user0\",\"city\":\"Rome\",\"email\":\"user0@example.com\"}");
+        connector();
+
+        ConnectorObject object = search(ObjectClass.ACCOUNT, FilterBuilder.equalTo(new Uid(user)),
+                new OperationOptionsBuilder().setAttributesToGet("city", "title").build()).get(0);
+        assertEquals(Set.of(Uid.NAME, Name.NAME, "city", "title"), object.getAttributes().stream()
+                .map(Attribute::getName).collect(Collectors.toSet()));
+        assertEquals("user0", object.getName().getNameValue());
+        assertEquals("Rome", AttributeUtil.getStringValue(object.getAttributeByName("city")));
+        assertNull(object.getAttributeByName("title").getValue());
+    }
+
+    @Test
+    public void compactReferences() {
+        String manager = addUsers(1).get(0);
+        instance.insert("sys_user", "{\"user_name\":\"user1\",\"manager\":\"" + manager + "\"}");
+        connector();
+
+        // references are kept as their sys_id, both in search results and in lookups
+        OperationOptions options = new OperationOptionsBuilder().setAttributesToGet("manager", "city").build();
+        List<ConnectorObject> objects = search(ObjectClass.ACCOUNT, null, options);
+        objects.addAll(search(ObjectClass.ACCOUNT, FilterBuilder.equalTo(new Name("user1")), options));
+        assertEquals(3, objects.size());
+        for (ConnectorObject object : objects) {
+            if ("user1".equals(object.getName().getNameValue())) {
+                assertEquals(manager, AttributeUtil.getStringValue(object.getAttributeByName("manager")));
+                assertNull(object.getAttributeByName("city").getValue());
+            } else {
+                assertNull(object.getAttributeByName("manager").getValue());
+                assertEquals("Rome", AttributeUtil.getStringValue(object.getAttributeByName("city")));
+            }
+        }
+    }
+
+    @Test
+    public void writeCache() {
+        String group = instance.insert("sys_user_group", "{\"name\":\"group0\"}");
+        conf.setWriteCacheSize(10);
+        conf.setBatchCreate(true);
+        connector();
+        OperationOptions options = new OperationOptionsBuilder().setAttributesToGet("city").build();
+
+        // records created, by single request or in batch, and updated are read back as returned by Service Now
+        Uid created = conn.create(ObjectClass.ACCOUNT, Set.of(
+                new Name("user0"), AttributeBuilder.build("city", "Rome")), options);
+        assertEquals("Rome", AttributeUtil.getStringValue(search(ObjectClass.ACCOUNT, FilterBuilder.equalTo(created),
+                options).get(0).getAttributeByName("city")));
+
+        conn.update(ObjectClass.ACCOUNT, created, Set.of(AttributeBuilder.build("city", "Milan")), options);
+        assertEquals("Milan", AttributeUtil.getStringValue(search(ObjectClass.ACCOUNT,
+                FilterBuilder.equalTo(created), options).get(0).getAttributeByName("city")));
+
+        Uid batched = conn.create(ObjectClass.ACCOUNT, Set.of(new Name("user1"), AttributeBuilder.build("city", "Rome"),
+                AttributeBuilder.build(PredefinedAttributes.GROUPS_NAME, group)), options);
+        assertEquals("user1", search(ObjectClass.ACCOUNT, FilterBuilder.equalTo(batched), options).get(0)
+                .getName().getNameValue());
+
+        assertEquals(List.of(), requests("GET /api/now/table/sys_user/"));
+    }
+
+    @Test
+    public void nameIndex() {
+        List<String> sysIds = addUsers(3);
+        String byName = instance.insert("sys_user", "{\"user_name\":\"other\",\"name\":\"user1\"}");
+        connector();
+        OperationOptions options = new OperationOptionsBuilder().setAttributesToGet("city").build();
+
+        // a record named as requested is preferred to one having it as user_name
+        assertEquals(byName, search(ObjectClass.ACCOUNT, FilterBuilder.equalTo(new Name("user1")), options).get(0)
+                .getUid().getUidValue());
+        assertEquals(List.of("name=user1^ORuser_name=user1"), params(USERS, "sysparm_query"));
+
+        // names found by searches are resolved with no request, unless more attributes are requested
+        search(ObjectClass.ACCOUNT, null, options);
+        instance.clearRequests();
+        assertEquals(sysIds.get(0), search(ObjectClass.ACCOUNT, FilterBuilder.equalTo(new Name("user0")), options)
+                .get(0).getUid().getUidValue());
+        assertEquals(List.of(), requests());
+        search(ObjectClass.ACCOUNT, FilterBuilder.equalTo(new Name("user0")),
+                new OperationOptionsBuilder().setAttributesToGet("city", "email").build());
+        assertEquals(1, requests(USERS).size());
+
+        // names of records updated are resolved again
+        conn.update(ObjectClass.ACCOUNT, new Uid(sysIds.get(2)), Set.of(AttributeBuilder.build("city", "Milan")),
+                options);
+        instance.clearRequests();
+        ConnectorObject updated = search(ObjectClass.ACCOUNT, FilterBuilder.equalTo(new Name("user2")), options)
+                .get(0);
+        assertEquals("Milan", AttributeUtil.getStringValue(updated.getAttributeByName("city")));
+        assertEquals(1, requests(USERS).size());
+    }
+
+    @Test
+    public void notFoundCache() {
+        conf.setNotFoundCacheSize(10);
+        connector();
+        OperationOptions options = new OperationOptionsBuilder().build();
+
+        // missing records are looked for once
+        Uid missing = new Uid(SNUtils.newSysId());
+        for (int i = 0; i < 2; i++) {
+            assertThrows(NoSuchEntityException.class,
+                    () -> search(ObjectClass.ACCOUNT, FilterBuilder.equalTo(missing), options));
+            assertEquals(List.of(), search(ObjectClass.ACCOUNT, FilterBuilder.equalTo(new Name("user0")), options));
+        }
+        assertEquals(1, requests("GET /api/now/table/sys_user/" + missing.getUidValue()).size());
+        assertEquals(1, requests(USERS).size());
+
+        // unless created by the connector meanwhile
+        Uid created = conn.create(ObjectClass.ACCOUNT, Set.of(new Name("user0")), options);
+        assertEquals(created, search(ObjectClass.ACCOUNT, FilterBuilder.equalTo(new Name("user0")), options).get(0)
+                .getUid());
+    }
+
+    @Test
+    public void queryCache() {
+        List<String> sysIds = addUsers(3);
+        conf.setQueryCacheSize(100);
+        connector();
+        OperationOptions options = new OperationOptionsBuilder().setAttributesToGet("city").build();
+        Filter inRome = FilterBuilder.equalTo(AttributeBuilder.build("city", "Rome"));
+
+        // identical searches are served from the cache
+        for (int i = 0; i < 2; i++) {
+            assertEquals(new HashSet<>(sysIds), search(ObjectClass.ACCOUNT, inRome, options).stream()
+                    .map(object -> object.getUid().getUidValue()).collect(Collectors.toSet()));
+        }
+        assertEquals(List.of("city=Rome^ORDERBYsys_id"), params(USERS, "sysparm_query"));
+
+        // until the connector changes the table
+        sysIds.add(conn.create(ObjectClass.ACCOUNT, Set.of(
+                new Name("user3"), AttributeBuilder.build("city", "Rome")), options).getUidValue());
+        assertEquals(new HashSet<>(sysIds), search(ObjectClass.ACCOUNT, inRome, options).stream()
+                .map(object -> object.getUid().getUidValue()).collect(Collectors.toSet()));
+        assertEquals(2, requests(USERS).size());
+    }
+}
@@ -0,0 +1,278 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import net.tirasa.connid.bundles.servicenow.dto.BaseEntity;
+import net.tirasa.connid.bundles.servicenow.dto.DeletedResource;
+import net.tirasa.connid.bundles.servicenow.dto.MembershipResource;
+import net.tirasa.connid.bundles.servicenow.dto.ResourceCodec;
+import net.tirasa.connid.bundles.servicenow.dto.SNComplex;
+import net.tirasa.connid.bundles.servicenow.dto.SyncWatermark;
+import net.tirasa.connid.bundles.servicenow.dto.UserResource;
+import net.tirasa.connid.bundles.servicenow.service.SNClient;
+import net.tirasa.connid.bundles.servicenow.utils.SNAttributes;
+import net.tirasa.connid.bundles.servicenow.utils.SNUtils;
+import org.identityconnectors.common.security.GuardedString;
+import org.identityconnectors.framework.common.objects.AttributeUtil;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.identityconnectors.framework.common.objects.OperationOptionsBuilder;
+import org.identityconnectors.framework.common.objects.PredefinedAttributes;
+import org.identityconnectors.framework.common.objects.SyncDelta;
+import org.identityconnectors.framework.common.objects.SyncDeltaType;
+import org.identityconnectors.framework.common.objects.SyncToken;
+import org.identityconnectors.framework.spi.SyncTokenResultsHandler;
+import org.junit.jupiter.api.Test;
+
+public class SNConnectorSyncTests {
+
+    private static final SyncWatermark W1 = new SyncWatermark("2024-03-01 10:00:00", "u1");
+
+    private static final SyncWatermark W2 = new SyncWatermark("2024-03-01 10:05:00", "u2");
+
+    private static final SyncWatermark M0 = new SyncWatermark("2024-02-01 10:00:00", "m0");
+
+    private static final SyncWatermark M1 = new SyncWatermark("2024-03-01 10:07:00", "m1");
+
+    private static final SyncWatermark D1 = new SyncWatermark("2024-03-01 10:10:00", "d1");
+
+    private static final SyncWatermark D2 = new SyncWatermark("2024-03-01 10:12:00", "d2");
+
+    /**
+     * Client reporting, as changed since the beginning: users u1 and u2; the deletion of user u9 and of a membership
+     * of user u3; memberships of users u1 and u4.
+     */
+    private static class ChangesClient extends SNClient {
+
+        private final List<String> userQueries = new ArrayList<>();
+
+        private final List<Collection<String>> deletionTables = new ArrayList<>();
+
+        private int membershipScans;
+
+        ChangesClient(final SNConnectorConfiguration configuration) {
+            super(configuration);
+        }
+
+        @Override
+        public SyncWatermark scanChanges(
+                final ResourceCodec codec,
+                final Set<String> fields,
+                final SyncWatermark from,
+                final Consumer<? super List<String>> pagePreparer,
+                final BiPredicate<? super BaseEntity, SyncWatermark> consumer) {
+
+            if (pagePreparer != null) {
+                pagePreparer.accept(List.of("u1", "u2"));
+            }
+            if (consumer.test(user("u1"), W1)) {
+                consumer.test(user("u2"), W2);
+            }
+            return W2;
+        }
+
+        @Override
+        public SyncWatermark scanDeletions(
+                final Collection<String> tables,
+                final SyncWatermark from,
+                final BiPredicate<? super DeletedResource, SyncWatermark> consumer) {
+
+            deletionTables.add(tables);
+            DeletedResource user = new DeletedResource();
+            user.setTablename(ResourceCodec.USER.getTable());
+            user.setDocumentkey("u9");
+            DeletedResource membership = new DeletedResource();
+            membership.setTablename(ResourceTable.sys_user_grmember.name());
+            membership.setDocumentkey("m9");
+            membership.setPayload("<record_update><sys_user_grmember><user>u3</user>"
+                    + "</sys_user_grmember></record_update>");
+
+            if (consumer.test(user, D1)) {
+                consumer.test(membership, D2);
+            }
+            return D2;
+        }
+
+        @Override
+        public SyncWatermark scanMembershipChanges(
+                final SyncWatermark from,
+                final BiPredicate<? super MembershipResource, SyncWatermark> consumer) {
+
+            membershipScans++;
+            for (String user : List.of("u1", "u4")) {
+                MembershipResource membership = new MembershipResource();
+                membership.setUser(new SNComplex(user));
+                consumer.test(membership, M1);
+            }
+            return M1;
+        }
+
+        @Override
+        public SyncWatermark getLatestMembershipWatermark() {
+            return M0;
+        }
+
+        @Override
+        public int streamResources(
+                final ResourceCodec codec,
+                final String filterQuery,
+                final Set<String> fields,
+                final Integer startIndex,
+                final Integer count,
+                final Predicate<? super BaseEntity> consumer) {
+
+            userQueries.add(filterQuery);
+            List<String> ids = List.of(filterQuery.substring(
+                    (SNAttributes.RESOURCE_ATTRIBUTE_ID + "IN").length()).split(","));
+            ids.forEach(id -> consumer.test(user(id)));
+            return ids.size();
+        }
+
+        @Override
+        public Map<String, List<String>> getUserGroups(final Collection<String> userIds) {
+            return userIds.stream().collect(Collectors.toMap(id -> id, id -> List.of("g_" + id)));
+        }
+    }
+
+    private static UserResource user(final String sysId) {
+        try {
+            return SNUtils.MAPPER.readValue(
+                    "{\"sys_id\":\"" + sysId + "\",\"user_name\":\"name_" + sysId + "\"}", UserResource.class);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String token(final SyncWatermark records, final SyncWatermark memberships,
+            final SyncWatermark deletions) {
+
+        return records + "|" + memberships + "|" + deletions;
+    }
+
+    private static SNConnector connector(final List<ChangesClient> clients) {
+        SNConnectorConfiguration configuration = new SNConnectorConfiguration();
+        configuration.setBaseAddress("https://example.service-now.com");
+        configuration.setUsername("admin");
+        configuration.setPassword(new GuardedString("password".toCharArray()));
+        configuration.setDeletedRecordsTable("sys_audit_delete");
+
+        SNConnector connector = new SNConnector() {
+
+            @Override
+            protected SNClient createClient(final SNConnectorConfiguration configuration) {
+                ChangesClient client = new ChangesClient(configuration);
+                clients.add(client);
+                return client;
+            }
+        };
+        connector.init(configuration);
+        return connector;
+    }
+
+    @Test
+    public void tokenSequence() {
+        List<ChangesClient> clients = new ArrayList<>();
+        SNConnector connector = connector(clients);
+
+        List<SyncDelta> deltas = new ArrayList<>();
+        List<SyncToken> latest = new ArrayList<>();
+        try {
+            connector.sync(ObjectClass.ACCOUNT, null, new SyncTokenResultsHandler() {
+
+                @Override
+                public boolean handle(final SyncDelta delta) {
+                    return deltas.add(delta);
+                }
+
+                @Override
+                public void handleResult(final SyncToken token) {
+                    latest.add(token);
+                }
+            }, new OperationOptionsBuilder().setAttributesToGet(PredefinedAttributes.GROUPS_NAME).build());
+        } finally {
+            connector.dispose();
+        }
+
+        assertEquals(List.of("u1", "u2", "u9", "u3", "u4"),
+                deltas.stream().map(delta -> delta.getUid().getUidValue()).collect(Collectors.toList()));
+        assertEquals(SyncDeltaType.DELETE, deltas.get(2).getDeltaType());
+        assertEquals(List.of(
+                token(W1, SyncWatermark.NONE, SyncWatermark.NONE),
+                token(W2, SyncWatermark.NONE, SyncWatermark.NONE),
+                token(W2, SyncWatermark.NONE, D1),
+                // users from deleted memberships might be lost, hence membership deletions are to be read again
+                token(W2, SyncWatermark.NONE, D1),
+                token(W2, SyncWatermark.NONE, D1)),
+                deltas.stream().map(delta -> delta.getToken().getValue()).collect(Collectors.toList()));
+        assertEquals(List.of(new SyncToken(token(W2, M1, D2))), latest);
+
+        // users changed are not read again when their memberships changed as well
+        assertEquals(List.of(SNAttributes.RESOURCE_ATTRIBUTE_ID + "INu3,u4"), clients.get(0).userQueries);
+        assertEquals(List.of("g_u4"), AttributeUtil.find(PredefinedAttributes.GROUPS_NAME,
+                deltas.get(4).getObject().getAttributes()).getValue());
+    }
+
+    @Test
+    public void membershipsFollowedWithoutGroups() {
+        List<ChangesClient> clients = new ArrayList<>();
+        SNConnector connector = connector(clients);
+
+        List<SyncDelta> deltas = new ArrayList<>();
+        List<SyncToken> latest = new ArrayList<>();
+        try {
+            connector.sync(ObjectClass.ACCOUNT, null, new SyncTokenResultsHandler() {
+
+                @Override
+                public boolean handle(final SyncDelta delta) {
+                    return deltas.add(delta);
+                }
+
+                @Override
+                public void handleResult(final SyncToken token) {
+                    latest.add(token);
+                }
+            }, new OperationOptionsBuilder().build());
+        } finally {
+            connector.dispose();
+        }
+
+        assertEquals(List.of("u1", "u2", "u9"),
+                deltas.stream().map(delta -> delta.getUid().getUidValue()).collect(Collectors.toList()));
+        assertEquals(List.of(
+                token(W1, M0, SyncWatermark.NONE),
+                token(W2, M0, SyncWatermark.NONE),
+                token(W2, M0, D1)),
+                deltas.stream().map(delta -> delta.getToken().getValue()).collect(Collectors.toList()));
+        assertEquals(List.of(new SyncToken(token(W2, M0, D2))), latest);
+
+        // membership changes are not read, as groups are not reported
+        assertEquals(List.of(List.of(ResourceCodec.USER.getTable())), clients.get(0).deletionTables);
+        assertEquals(0, clients.get(0).membershipScans);
+        assertTrue(clients.get(0).userQueries.isEmpty());
+    }
+}
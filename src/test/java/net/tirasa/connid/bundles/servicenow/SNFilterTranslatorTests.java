@@ -0,0 +1,97 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import net.tirasa.connid.bundles.servicenow.dto.TableCodec;
+import org.identityconnectors.framework.common.objects.AttributeBuilder;
+import org.identityconnectors.framework.common.objects.Name;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.identityconnectors.framework.common.objects.filter.FilterBuilder;
+import org.junit.jupiter.api.Test;
+
+public class SNFilterTranslatorTests {
+
+    private static final SNFilterTranslator ACCOUNT_TRANSLATOR = new SNFilterTranslator(ObjectClass.ACCOUNT);
+
+    private static final SNFilterTranslator GROUP_TRANSLATOR = new SNFilterTranslator(ObjectClass.GROUP);
+
+    @Test
+    public void specialAttributes() {
+        assertEquals("sys_id=1234", ACCOUNT_TRANSLATOR.toEncodedQuery(FilterBuilder.equalTo(new Uid("1234"))));
+        assertEquals("user_name=jdoe", ACCOUNT_TRANSLATOR.toEncodedQuery(FilterBuilder.equalTo(new Name("jdoe"))));
+        assertEquals("name=admins", GROUP_TRANSLATOR.toEncodedQuery(FilterBuilder.equalTo(new Name("admins"))));
+        assertEquals("active=true",
+                ACCOUNT_TRANSLATOR.toEncodedQuery(FilterBuilder.equalTo(AttributeBuilder.buildEnabled(true))));
+    }
+
+    @Test
+    public void operators() {
+        assertEquals("city!=Rome", ACCOUNT_TRANSLATOR.toEncodedQuery(
+                FilterBuilder.not(FilterBuilder.equalTo(AttributeBuilder.build("city", "Rome")))));
+        assertEquals("emailLIKE@tirasa.net", ACCOUNT_TRANSLATOR.toEncodedQuery(
+                FilterBuilder.contains(AttributeBuilder.build("email", "@tirasa.net"))));
+        assertEquals("cityISEMPTY", ACCOUNT_TRANSLATOR.toEncodedQuery(
+                FilterBuilder.equalTo(AttributeBuilder.build("city"))));
+        assertEquals("city<=a^ORzip>=b", ACCOUNT_TRANSLATOR.toEncodedQuery(FilterBuilder.not(FilterBuilder.and(
+                FilterBuilder.greaterThan(AttributeBuilder.build("city", "a")),
+                FilterBuilder.lessThan(AttributeBuilder.build("zip", "b"))))));
+    }
+
+    @Test
+    public void composite() {
+        assertEquals("active=true^departmentSTARTSWITHabc", ACCOUNT_TRANSLATOR.toEncodedQuery(FilterBuilder.and(
+                FilterBuilder.equalTo(AttributeBuilder.build("active", "true")),
+                FilterBuilder.startsWith(AttributeBuilder.build("department", "abc")))));
+        assertEquals("city=a^ORcity=b^active=true", ACCOUNT_TRANSLATOR.toEncodedQuery(FilterBuilder.and(
+                FilterBuilder.or(
+                        FilterBuilder.equalTo(AttributeBuilder.build("city", "a")),
+                        FilterBuilder.equalTo(AttributeBuilder.build("city", "b"))),
+                FilterBuilder.equalTo(AttributeBuilder.buildEnabled(true)))));
+        assertEquals("city=Rome^email=e^NQzip=1", ACCOUNT_TRANSLATOR.toEncodedQuery(FilterBuilder.or(
+                FilterBuilder.and(
+                        FilterBuilder.equalTo(AttributeBuilder.build("city", "Rome")),
+                        FilterBuilder.equalTo(AttributeBuilder.build("email", "e"))),
+                FilterBuilder.equalTo(AttributeBuilder.build("zip", "1")))));
+    }
+
+    @Test
+    public void untranslatable() {
+        assertNull(ACCOUNT_TRANSLATOR.toEncodedQuery(null));
+        assertNull(ACCOUNT_TRANSLATOR.toEncodedQuery(FilterBuilder.equalTo(AttributeBuilder.build("unknown", "x"))));
+        assertEquals("email=x", ACCOUNT_TRANSLATOR.toEncodedQuery(FilterBuilder.and(
+                FilterBuilder.equalTo(AttributeBuilder.build("city", "a^b")),
+                FilterBuilder.equalTo(AttributeBuilder.build("email", "x")))));
+        assertNull(ACCOUNT_TRANSLATOR.toEncodedQuery(FilterBuilder.or(
+                FilterBuilder.equalTo(AttributeBuilder.build("city", "a^b")),
+                FilterBuilder.equalTo(AttributeBuilder.build("email", "x")))));
+    }
+
+    @Test
+    public void tableWithoutName() {
+        SNFilterTranslator translator = new SNFilterTranslator(
+                new ObjectClass("cmdb_rel_ci"), new TableCodec("cmdb_rel_ci", List.of("sys_id", "parent"), List.of()));
+
+        assertNull(translator.toEncodedQuery(FilterBuilder.equalTo(new Name("x"))));
+        assertEquals("parent=p", translator.toEncodedQuery(FilterBuilder.and(
+                FilterBuilder.equalTo(new Name("x")),
+                FilterBuilder.equalTo(AttributeBuilder.build("parent", "p")))));
+    }
+}
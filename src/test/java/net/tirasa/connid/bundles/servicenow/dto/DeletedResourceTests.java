@@ -0,0 +1,44 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import net.tirasa.connid.bundles.servicenow.utils.SNUtils;
+import org.junit.jupiter.api.Test;
+
+public class DeletedResourceTests {
+
+    @Test
+    public void payload() throws IOException {
+        DeletedResource deleted = SNUtils.MAPPER.readValue("{"
+                + "\"sys_id\":\"1\",\"sys_updated_on\":\"2024-03-01 10:15:00\",\"tablename\":\"sys_user_grmember\","
+                + "\"documentkey\":\"abcd\",\"payload\":\"<?xml version=\\\"1.0\\\" encoding=\\\"UTF-8\\\"?>"
+                + "<record_update><sys_user_grmember><group display_value=\\\"Admins\\\">g1</group>"
+                + "<sys_id>abcd</sys_id><user display_value=\\\"John\\\">u1</user><user_name/>"
+                + "</sys_user_grmember></record_update>\"}", DeletedResource.class);
+
+        assertEquals("sys_user_grmember", deleted.getTablename());
+        assertEquals("abcd", deleted.getDocumentkey());
+        assertEquals("2024-03-01 10:15:00", deleted.getSysUpdatedOn());
+        assertEquals("u1", deleted.getPayloadValue("user"));
+        assertEquals("g1", deleted.getPayloadValue("group"));
+        assertNull(deleted.getPayloadValue("user_name"));
+        assertNull(deleted.getPayloadValue("name"));
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import net.tirasa.connid.bundles.servicenow.utils.SNAttributes;
+import net.tirasa.connid.bundles.servicenow.utils.SNUtils;
+import org.identityconnectors.common.CollectionUtil;
+import org.identityconnectors.framework.common.objects.Attribute;
+import org.identityconnectors.framework.common.objects.AttributeBuilder;
+import org.identityconnectors.framework.common.objects.AttributeUtil;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.junit.jupiter.api.Test;
+
+public class ResourceCodecTests {
+
+    @Test
+    public void fields() {
+        ResourceCodec codec = ResourceCodec.RESOURCE;
+        assertEquals(Arrays.stream(Resource.class.getDeclaredFields())
+                .filter(field -> field.isAnnotationPresent(JsonProperty.class)).count(), codec.size());
+        assertEquals(SNAttributes.USER_ATTRIBUTE_USERNAME,
+                codec.name(codec.indexOf(SNAttributes.USER_ATTRIBUTE_USERNAME)));
+        assertEquals(-1, codec.indexOf(Uid.NAME));
+
+        int[] indexes = codec.indexesOf(List.of(Uid.NAME, SNAttributes.RESOURCE_ATTRIBUTE_NAME));
+        assertEquals(1, indexes.length);
+        assertEquals(SNAttributes.RESOURCE_ATTRIBUTE_NAME, codec.name(indexes[0]));
+    }
+
+    @Test
+    public void roundTrip() throws IllegalAccessException {
+        Resource resource = new Resource();
+        resource.fromAttributes(Set.of(
+                AttributeBuilder.build(SNAttributes.USER_ATTRIBUTE_USERNAME, "jdoe"),
+                AttributeBuilder.build(SNAttributes.RESOURCE_ATTRIBUTE_ACTIVE, Boolean.TRUE),
+                AttributeBuilder.build("cost_center", "1234"),
+                AttributeBuilder.build(SNAttributes.RESOURCE_ATTRIBUTE_LDAP_SERVER, "5678"),
+                AttributeBuilder.build(Uid.NAME, "ignored")),
+                "https://example.service-now.com/");
+
+        assertEquals("jdoe", resource.getUserName());
+        assertEquals("true", resource.getActive());
+        assertEquals("1234", resource.getCostCenter().getValue());
+        assertEquals("https://example.service-now.com/api/now/table/ldap_server_config/5678",
+                resource.getLdapServer().getLink());
+        assertNull(resource.getSysId());
+
+        Set<Attribute> attributes = resource.toAttributes();
+        assertEquals(ResourceCodec.RESOURCE.size(), attributes.size());
+        assertEquals("jdoe", AttributeUtil.getStringValue(
+                AttributeUtil.find(SNAttributes.USER_ATTRIBUTE_USERNAME, attributes)));
+        assertEquals("1234", AttributeUtil.getStringValue(AttributeUtil.find("cost_center", attributes)));
+        assertTrue(CollectionUtil.isEmpty(
+                AttributeUtil.find(SNAttributes.RESOURCE_ATTRIBUTE_ID, attributes).getValue()));
+    }
+
+    @Test
+    public void compact() {
+        Resource resource = new Resource();
+        resource.setSysId("abcd");
+        resource.setUserName("jdoe");
+        resource.setCity("Rome");
+        resource.setManager(new SNComplex("1234"));
+
+        ResourceCodec codec = ResourceCodec.RESOURCE;
+        CompactResource compact = codec.compact(resource, codec.indexesOf(List.of(
+                SNAttributes.RESOURCE_ATTRIBUTE_ID, SNAttributes.USER_ATTRIBUTE_USERNAME,
+                SNAttributes.RESOURCE_ATTRIBUTE_NAME, "manager", "email")));
+
+        assertEquals("abcd", compact.getSysId());
+        assertEquals("jdoe", compact.getUserName());
+        assertNull(compact.getName());
+        assertEquals("1234", compact.get("manager"));
+        assertNull(compact.get("email"));
+        // not kept
+        assertNull(compact.get("city"));
+        assertTrue(CollectionUtil.isEmpty(compact.toAttribute(codec.indexOf("email")).getValue()));
+    }
+
+    @Test
+    public void compactAllFields() {
+        ResourceCodec codec = ResourceCodec.RESOURCE;
+        Resource resource = new Resource();
+        int[] indexes = new int[codec.size()];
+        for (int i = 0; i < codec.size(); i++) {
+            indexes[i] = i;
+            if (i % 3 != 0) {
+                codec.set(resource, i, "v" + i, "");
+            }
+        }
+
+        CompactResource compact = codec.compact(resource, indexes);
+        for (int i = 0; i < codec.size(); i++) {
+            assertEquals(i % 3 == 0 ? null : "v" + i, compact.get(i));
+        }
+    }
+
+    @Test
+    public void perTable() throws IOException {
+        assertEquals(-1, ResourceCodec.GROUP.indexOf(SNAttributes.USER_ATTRIBUTE_USERNAME));
+        assertEquals(-1, ResourceCodec.USER.indexOf("incident_state"));
+
+        UserResource user = SNUtils.MAPPER.readValue("{"
+                + "\"sys_id\":\"abcd\",\"user_name\":\"jdoe\",\"active\":true,\"incident_state\":\"1\","
+                + "\"manager\":{\"link\":\"https://example.service-now.com/api/now/table/sys_user/1234\","
+                + "\"value\":\"1234\"},\"department\":\"\",\"city\":null,\"other\":{\"nested\":[1,2]}"
+                + "}", UserResource.class);
+        assertEquals("abcd", user.getSysId());
+        assertEquals("jdoe", user.getUserName());
+        assertEquals("true", user.getActive());
+        assertEquals("1234", user.getManager().getValue());
+        assertEquals("https://example.service-now.com/api/now/table/sys_user/1234", user.getManager().getLink());
+        assertNull(user.getDepartment());
+        assertNull(user.getCity());
+
+        CompactResource compact = ResourceCodec.USER.compact(user, ResourceCodec.USER.indexesOf(
+                List.of(SNAttributes.RESOURCE_ATTRIBUTE_ID, "manager")));
+        assertEquals("1234", compact.get("manager"));
+    }
+
+    @Test
+    public void tableRecord() throws IOException {
+        TableCodec codec = new TableCodec("cmn_department", List.of("name", "head", "sys_id"), List.of("head"));
+        assertEquals(3, codec.size());
+        assertEquals(0, codec.indexOf(SNAttributes.RESOURCE_ATTRIBUTE_ID));
+        assertTrue(codec.isReference(codec.indexOf("head")));
+
+        TableRecord record = codec.reader().readValue("{"
+                + "\"sys_id\":\"abcd\",\"name\":\"Sales\",\"code\":\"S\","
+                + "\"head\":{\"link\":\"https://example.service-now.com/api/now/table/sys_user/1234\","
+                + "\"value\":\"1234\"}}");
+        assertEquals("abcd", record.getSysId());
+        assertEquals("Sales", codec.get(record, codec.indexOf("name")));
+        assertEquals("1234", codec.get(record, codec.indexOf("head")));
+
+        CompactResource compact = codec.compact(record, codec.indexesOf(List.of("name", "head")));
+        assertEquals("Sales", compact.getName());
+        assertNull(compact.get(SNAttributes.RESOURCE_ATTRIBUTE_ID));
+        assertEquals("1234", AttributeUtil.getStringValue(compact.toAttribute(codec.indexOf("head"))));
+    }
+}
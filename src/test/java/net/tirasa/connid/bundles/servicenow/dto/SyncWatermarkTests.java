@@ -0,0 +1,45 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.identityconnectors.framework.common.exceptions.InvalidAttributeValueException;
+import org.junit.jupiter.api.Test;
+
+public class SyncWatermarkTests {
+
+    @Test
+    public void parse() {
+        assertTrue(SyncWatermark.parse(null).isNone());
+        assertTrue(SyncWatermark.parse("").isNone());
+        assertEquals("", SyncWatermark.NONE.toString());
+
+        SyncWatermark watermark = new SyncWatermark("2024-03-01 10:15:00", "abcd1234");
+        assertEquals(watermark, SyncWatermark.parse(watermark.toString()));
+        assertEquals("2024-03-01 10:15:00", SyncWatermark.parse(watermark.toString()).getUpdatedOn());
+        assertEquals("abcd1234", SyncWatermark.parse(watermark.toString()).getSysId());
+    }
+
+    @Test
+    public void invalid() {
+        assertThrows(InvalidAttributeValueException.class, () -> SyncWatermark.parse("2024-03-01 10:15:00"));
+        assertThrows(InvalidAttributeValueException.class, () -> SyncWatermark.parse("2024^active=true,abcd"));
+        assertThrows(InvalidAttributeValueException.class, () -> SyncWatermark.parse("2024-03-01,ab^cd"));
+    }
+}
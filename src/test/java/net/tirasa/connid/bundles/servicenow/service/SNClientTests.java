@@ -0,0 +1,305 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import net.tirasa.connid.bundles.servicenow.SNConnectorConfiguration;
+import net.tirasa.connid.bundles.servicenow.dto.BaseEntity;
+import net.tirasa.connid.bundles.servicenow.dto.BatchOperation;
+import net.tirasa.connid.bundles.servicenow.dto.BatchOperationResult;
+import net.tirasa.connid.bundles.servicenow.dto.BatchRequest;
+import net.tirasa.connid.bundles.servicenow.dto.BatchResponse;
+import net.tirasa.connid.bundles.servicenow.dto.ResourceCodec;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
+import org.junit.jupiter.api.Test;
+
+public class SNClientTests {
+
+    /**
+     * Client serving a single page of records, telling whether its response is still being read.
+     */
+    private static class PageClient extends SNClient {
+
+        private final List<String> sysIds;
+
+        private final AtomicBoolean served = new AtomicBoolean();
+
+        private volatile boolean reading;
+
+        PageClient(final int parallelism, final int readAheadPages, final String... sysIds) {
+            super(configuration(parallelism, readAheadPages));
+            this.sysIds = List.of(sysIds);
+        }
+
+        @Override
+        protected <T> int doStream(
+                final WebClient webClient, final ObjectReader reader, final Predicate<? super T> consumer) {
+
+            if (served.getAndSet(true)) {
+                return 0;
+            }
+            reading = true;
+            try {
+                int count = 0;
+                for (int i = 0; i < sysIds.size() && consumer.test(read(reader, sysIds.get(i))); i++) {
+                    count++;
+                }
+                return count;
+            } finally {
+                reading = false;
+            }
+        }
+
+        private static <T> T read(final ObjectReader reader, final String sysId) {
+            try {
+                return reader.readValue("{\"sys_id\":\"" + sysId + "\"}");
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static SNConnectorConfiguration configuration(final int parallelism, final int readAheadPages) {
+        SNConnectorConfiguration configuration = new SNConnectorConfiguration();
+        configuration.setBaseAddress("https://example.service-now.com");
+        configuration.setUsername("admin");
+        configuration.setScanParallelism(parallelism);
+        configuration.setReadAheadPages(readAheadPages);
+        return configuration;
+    }
+
+    /**
+     * Evaluates a shard query, made of sys_id conditions joined by AND, the way Service Now compares strings.
+     */
+    private static boolean matches(final String query, final String sysId) {
+        if (query == null) {
+            return true;
+        }
+        for (String condition : query.split("\\^")) {
+            if (condition.startsWith("sys_id>=")) {
+                if (sysId.compareTo(condition.substring("sys_id>=".length())) < 0) {
+                    return false;
+                }
+            } else if (condition.startsWith("sys_id<")) {
+                if (sysId.compareTo(condition.substring("sys_id<".length())) >= 0) {
+                    return false;
+                }
+            } else {
+                throw new IllegalArgumentException(condition);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Client answering batch requests with the given responses, in order, recording the operations sent.
+     */
+    private static class BatchClient extends SNClient {
+
+        private final Queue<BatchResponse> responses = new ArrayDeque<>();
+
+        private final List<String> requestIds = new ArrayList<>();
+
+        private final List<List<String>> sent = new ArrayList<>();
+
+        BatchClient(final int retries, final BatchResponse... responses) {
+            this(configuration(1, 0), retries, responses);
+        }
+
+        BatchClient(
+                final SNConnectorConfiguration configuration,
+                final int retries,
+                final BatchResponse... responses) {
+
+            super(configuration);
+            config.setBatchRetries(retries);
+            for (BatchResponse response : responses) {
+                this.responses.add(response);
+            }
+        }
+
+        @Override
+        protected BatchResponse postBatch(final BatchRequest batchRequest) {
+            requestIds.add(batchRequest.getBatchRequestId());
+            sent.add(batchRequest.getRequests().stream().map(BatchOperation::getId).collect(Collectors.toList()));
+            return responses.poll();
+        }
+    }
+
+    private static BatchRequest request(final String... ids) {
+        BatchRequest request = new BatchRequest("batch");
+        for (String id : ids) {
+            request.getRequests().add(new BatchOperation.Builder()
+                    .id(id).method("POST").url("/api/now/table/sys_user_grmember").build());
+        }
+        return request;
+    }
+
+    private static BatchResponse response(final Object... idsAndStatuses) {
+        BatchResponse response = new BatchResponse();
+        for (int i = 0; i < idsAndStatuses.length; i += 2) {
+            BatchOperationResult result = new BatchOperationResult();
+            result.setId((String) idsAndStatuses[i]);
+            result.setStatusCode((Integer) idsAndStatuses[i + 1]);
+            response.getServicedRequests().add(result);
+        }
+        return response;
+    }
+
+    @Test
+    public void shardQueries() {
+        List<String> keys = List.of(
+                "00000000000000000000000000000000", "0fffffffffffffffffffffffffffffff",
+                "10000000000000000000000000000000", "7a3c9e0b5d2f41e6a8b7c6d5e4f30211",
+                "ef000000000000000000000000000000", "ffffffffffffffffffffffffffffffff");
+
+        for (int parallelism : new int[] { 2, 16, 17, 64 }) {
+            List<String> shards = SNClient.shardQueries(parallelism);
+            assertEquals(parallelism <= 16 ? 16 : 256, shards.size());
+            for (String key : keys) {
+                assertEquals(1L, shards.stream().filter(shard -> matches(shard, key)).count());
+            }
+        }
+
+        List<String> shards = SNClient.shardQueries(4);
+        assertEquals("sys_id<1", shards.get(0));
+        assertEquals("sys_id>=1^sys_id<2", shards.get(1));
+        assertEquals("sys_id>=f", shards.get(15));
+    }
+
+    @Test
+    public void pagesPreparedOnceRead() {
+        // sequential, read-ahead and parallel scans
+        for (int[] mode : new int[][] { { 1, 0 }, { 1, 2 }, { 4, 0 } }) {
+            PageClient client = new PageClient(mode[0], mode[1], "u1", "u2", "u3");
+            List<String> prepared = new ArrayList<>();
+            List<String> whenPrepared = new ArrayList<>();
+            List<String> consumed = Collections.synchronizedList(new ArrayList<>());
+            try {
+                client.scanResources(ResourceCodec.USER, null, null, Function.identity(), sysIds -> {
+                    whenPrepared.add("reading=" + client.reading + ", consumed=" + consumed.size());
+                    prepared.addAll(sysIds);
+                }, (BaseEntity resource) -> consumed.add(resource.getSysId()));
+            } finally {
+                client.close();
+            }
+
+            assertEquals(List.of("reading=false, consumed=0"), whenPrepared);
+            assertEquals(List.of("u1", "u2", "u3"), prepared);
+            assertEquals(prepared, consumed);
+        }
+    }
+
+    @Test
+    public void readAheadFailureEndsScan() {
+        PageClient client = new PageClient(1, 2, "u1", "u2");
+        List<String> consumed = new ArrayList<>();
+        try {
+            Error error = assertThrows(Error.class, () -> client.scanResources(
+                    ResourceCodec.USER, null, null, Function.identity(), sysIds -> {
+                        throw new Error("page preparer failed");
+                    }, (BaseEntity resource) -> consumed.add(resource.getSysId())));
+            assertEquals("page preparer failed", error.getMessage());
+        } finally {
+            client.close();
+        }
+
+        assertTrue(consumed.isEmpty());
+    }
+
+    @Test
+    public void batchRetriesTransientAndUnserviced() {
+        // 2 fails with a transient error and 3 is not serviced: both are sent again, alone
+        BatchClient client = new BatchClient(2,
+                response("1", 201, "2", 503),
+                response("2", 201, "3", 201));
+        try {
+            client.executeBatch(request("1", "2", "3"));
+
+            assertEquals(List.of(List.of("1", "2", "3"), List.of("2", "3")), client.sent);
+            assertEquals(List.of("batch", "batch-r1"), client.requestIds);
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void batchFailsOnPermanentFailure() {
+        BatchClient client = new BatchClient(2, response("1", 201, "2", 400));
+        try {
+            ConnectorException e = assertThrows(ConnectorException.class,
+                    () -> client.executeBatch(request("1", "2")));
+            assertTrue(e.getMessage().contains("400"));
+            assertEquals(1, client.sent.size());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void batchReportsUnservicedAfterRetries() {
+        // no response at all, as for a whole batch rejected with a transient error
+        BatchClient client = new BatchClient(1);
+        try {
+            ConnectorException e = assertThrows(ConnectorException.class,
+                    () -> client.executeBatch(request("1")));
+            assertTrue(e.getMessage().contains("not serviced"));
+            assertEquals(List.of(List.of("1"), List.of("1")), client.sent);
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void batchCreateReadBack() {
+        SNConnectorConfiguration configuration = configuration(1, 0);
+        configuration.setWriteCacheSize(10);
+        BatchResponse response = response("1", 201);
+        response.getServicedRequests().get(0).setBody(Base64.getEncoder().encodeToString(
+                "{\"result\":{\"sys_id\":\"u1\",\"user_name\":\"jdoe\"}}".getBytes(StandardCharsets.UTF_8)));
+
+        BatchClient client = new BatchClient(configuration, 0, response);
+        try {
+            BatchRequest request = new BatchRequest("batch");
+            request.getRequests().add(new BatchOperation.Builder()
+                    .id("1").method("POST").url("/api/now/table/sys_user").build());
+            client.executeBatch(request, true);
+
+            // read back as returned in the batch response, with no request sent
+            BaseEntity read = client.getResource(ResourceCodec.USER, "u1", null);
+            assertEquals("jdoe", ResourceCodec.USER.get(read, ResourceCodec.USER.indexOf("user_name")));
+        } finally {
+            client.close();
+        }
+    }
+}
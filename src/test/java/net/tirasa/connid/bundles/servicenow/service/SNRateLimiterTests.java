@@ -0,0 +1,103 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import net.tirasa.connid.bundles.servicenow.SNConnectorConfiguration;
+import org.junit.jupiter.api.Test;
+
+public class SNRateLimiterTests {
+
+    private static final long NOW_MILLIS = 1_700_000_000_000L;
+
+    @Test
+    public void reserve() {
+        SNRateLimiter limiter = new SNRateLimiter(2);
+        long now = System.nanoTime();
+
+        assertEquals(0L, limiter.reserve(now));
+        assertEquals(0L, limiter.reserve(now));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), limiter.reserve(now));
+        assertEquals(TimeUnit.SECONDS.toNanos(1), limiter.reserve(now));
+
+        // paused requests wait at least until the pause is over
+        limiter.pause(now, TimeUnit.SECONDS.toNanos(3));
+        assertEquals(TimeUnit.SECONDS.toNanos(3), limiter.reserve(now));
+    }
+
+    @Test
+    public void unlimited() {
+        SNRateLimiter limiter = new SNRateLimiter(0);
+        long now = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0L, limiter.reserve(now));
+        }
+    }
+
+    @Test
+    public void adapt() {
+        SNRateLimiter limiter = new SNRateLimiter(0);
+        limiter.adapt("1000", "100", String.valueOf(TimeUnit.MILLISECONDS.toSeconds(NOW_MILLIS) + 50), NOW_MILLIS);
+        assertEquals(2.0, limiter.getRate());
+
+        limiter.adapt("7200", null, null, NOW_MILLIS);
+        assertEquals(2.0, limiter.getRate());
+
+        limiter.adapt("invalid", "invalid", null, NOW_MILLIS);
+        assertEquals(2.0, limiter.getRate());
+
+        // never above the configured rate
+        SNRateLimiter configured = new SNRateLimiter(1);
+        configured.adapt("7200", null, null, NOW_MILLIS);
+        assertEquals(1.0, configured.getRate());
+        configured.adapt("1800", null, null, NOW_MILLIS);
+        assertEquals(0.5, configured.getRate());
+    }
+
+    @Test
+    public void retryAfter() {
+        assertEquals(5000L, SNRateLimiter.retryAfterMillis("5", NOW_MILLIS));
+        assertEquals(1000L, SNRateLimiter.retryAfterMillis(null, NOW_MILLIS));
+        assertEquals(1000L, SNRateLimiter.retryAfterMillis("soon", NOW_MILLIS));
+        assertEquals(0L, SNRateLimiter.retryAfterMillis("Thu, 01 Jan 1970 00:00:00 GMT", NOW_MILLIS));
+        assertEquals(10000L, SNRateLimiter.retryAfterMillis("Tue, 14 Nov 2023 22:13:30 GMT", NOW_MILLIS));
+    }
+
+    @Test
+    public void sharedUntilReleased() {
+        SNConnectorConfiguration configuration = new SNConnectorConfiguration();
+        configuration.setBaseAddress("https://shared.service-now.com");
+        configuration.setUsername("admin");
+
+        SNRateLimiter first = SNRateLimiter.of(configuration);
+        SNRateLimiter second = SNRateLimiter.of(configuration);
+        assertTrue(first == second);
+
+        first.release();
+        assertTrue(second.isShared());
+
+        second.release();
+        assertFalse(second.isShared());
+
+        SNRateLimiter third = SNRateLimiter.of(configuration);
+        assertFalse(third == first);
+        third.release();
+    }
+}
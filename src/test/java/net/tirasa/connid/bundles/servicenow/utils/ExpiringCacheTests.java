@@ -0,0 +1,94 @@
+/**
+ * Copyright © 2018 ConnId (connid-dev@googlegroups.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.tirasa.connid.bundles.servicenow.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class ExpiringCacheTests {
+
+    @Test
+    public void expiration() {
+        AtomicLong now = new AtomicLong();
+        ExpiringCache<String, String> cache = new ExpiringCache<String, String>(10, 100L, value -> 1, now::get);
+        cache.put("a", "1");
+        assertEquals("1", cache.get("a"));
+
+        now.set(100L);
+        ExpiringCache.Entry<String> entry = cache.getEntry("a");
+        assertNotNull(entry);
+        assertTrue(cache.isExpired(entry));
+
+        cache.renew("a", entry);
+        assertEquals("1", cache.get("a"));
+
+        now.set(200L);
+        assertNull(cache.get("a"));
+        assertNull(cache.getEntry("a"));
+    }
+
+    @Test
+    public void eviction() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(2, 1000L);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+        cache.put("c", "3");
+        assertEquals(2, cache.size());
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+
+        cache.invalidateAll(key -> key.startsWith("c"));
+        assertNull(cache.get("c"));
+
+        ExpiringCache<String, String> disabled = new ExpiringCache<>(0, 1000L);
+        disabled.put("a", "1");
+        assertNull(disabled.get("a"));
+    }
+
+    @Test
+    public void weight() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(5L, 1000L, String::length);
+        cache.put("a", "12");
+        cache.put("b", "123");
+        assertEquals(2, cache.size());
+
+        cache.get("a");
+        cache.put("c", "1");
+        assertNull(cache.get("b"));
+        assertEquals("12", cache.get("a"));
+        assertEquals("1", cache.get("c"));
+
+        cache.put("d", "123456");
+        assertNull(cache.get("d"));
+        assertEquals(2, cache.size());
+
+        cache.invalidateAll(key -> key.equals("a"));
+        cache.put("e", "1234");
+        assertEquals("1", cache.get("c"));
+        assertEquals("1234", cache.get("e"));
+
+        cache.invalidateValues(value -> value.length() == 4);
+        assertNull(cache.get("e"));
+        cache.put("f", "1234");
+        assertEquals("1234", cache.get("f"));
+    }
+}